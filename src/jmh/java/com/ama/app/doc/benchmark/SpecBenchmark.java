@@ -0,0 +1,93 @@
+package com.ama.app.doc.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ama.app.doc.SpecIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+
+/**
+ * The phases before anything is written: parsing the spec, resolving its {@code $ref}s and
+ * flattening the request and response schemas into table rows. Each invocation starts from a fresh
+ * {@link SpecIndex} so its memoization is measured rather than reused across invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpecBenchmark {
+
+    @Param({"50", "500"})
+    private int operations;
+
+    @Param({"2"})
+    private int schemaDepth;
+
+    @Param({"2"})
+    private int refFanOut;
+
+    @Param({"yaml", "json"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private byte[] spec;
+    private JsonNode root;
+    private final List<String> refs = new ArrayList<>();
+    private final List<JsonNode> bodySchemas = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        mapper = "yaml".equals(format) ? new YAMLMapper() : new ObjectMapper();
+        spec = new SpecGenerator(operations, schemaDepth, refFanOut).bytes(format);
+        root = mapper.readTree(spec);
+        root.findValues("$ref").forEach(ref -> refs.add(ref.asText()));
+        for (JsonNode pathItem : root.path("paths")) {
+            for (JsonNode op : pathItem) {
+                bodySchemas.add(op.path("requestBody").path("content").path("application/json").path("schema"));
+                for (JsonNode response : op.path("responses")) {
+                    bodySchemas.add(response.path("content").path("application/json").path("schema"));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public JsonNode parse() throws IOException {
+        return mapper.readTree(spec);
+    }
+
+    @Benchmark
+    public void resolveRefs(Blackhole blackhole) {
+        SpecIndex index = SpecIndex.of(root);
+        for (String ref : refs) {
+            blackhole.consume(index.resolve(ref));
+        }
+    }
+
+    @Benchmark
+    public void buildTables(Blackhole blackhole) {
+        SpecIndex index = SpecIndex.of(root);
+        for (JsonNode schema : bodySchemas) {
+            blackhole.consume(index.rows(schema));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.ama.app.doc.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+
+/**
+ * Produces synthetic OpenAPI 3 specs of a given shape. The output is deterministic for the same
+ * arguments, so benchmark runs are comparable.
+ * <ul>
+ * <li>{@code operations}: number of operations, spread over paths with a GET and a POST each;</li>
+ * <li>{@code schemaDepth}: levels of nested inline objects in every component schema;</li>
+ * <li>{@code refFanOut}: array properties per component schema whose items {@code $ref} other schemas.</li>
+ * </ul>
+ * Half of the component schemas are aggregates whose fan-out refs point at the other half, the
+ * leaves, so refs are resolved and flattened without the table size growing with the number of schemas.
+ * Run {@link #main} to write a spec to disk: {@code operations schemaDepth refFanOut yaml|json file}.
+ */
+public class SpecGenerator {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final YAMLMapper YAML = new YAMLMapper();
+
+    private final int operations;
+    private final int schemaDepth;
+    private final int refFanOut;
+    private final int schemas;
+
+    public SpecGenerator(int operations, int schemaDepth, int refFanOut) {
+        this.operations = operations;
+        this.schemaDepth = schemaDepth;
+        this.refFanOut = refFanOut;
+        this.schemas = Math.max(2, operations / 4);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 5) {
+            System.err.println("usage: SpecGenerator operations schemaDepth refFanOut yaml|json file");
+            System.exit(2);
+        }
+        SpecGenerator generator = new SpecGenerator(
+                Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        Files.write(Paths.get(args[4]), generator.bytes(args[3]));
+    }
+
+    public ObjectNode spec() {
+        ObjectNode root = JSON.createObjectNode();
+        root.put("openapi", "3.0.1");
+        root.putObject("info")
+                .put("title", "Synthetic API")
+                .put("description", operations + " operations, depth " + schemaDepth + ", fan-out " + refFanOut)
+                .put("version", "1.0");
+
+        ObjectNode paths = root.putObject("paths");
+        for (int i = 0; i < operations; i++) {
+            ObjectNode pathItem = paths.has("/resource" + i / 2)
+                    ? (ObjectNode) paths.get("/resource" + i / 2)
+                    : paths.putObject("/resource" + i / 2);
+            pathItem.set(i % 2 == 0 ? "get" : "post", operation(i));
+        }
+
+        ObjectNode components = root.putObject("components").putObject("schemas");
+        for (int i = 0; i < schemas; i++) {
+            components.set(schemaName(i), schema(i));
+        }
+        return root;
+    }
+
+    /** The spec serialized as {@code yaml} or {@code json}. */
+    public byte[] bytes(String format) throws IOException {
+        ObjectMapper mapper = "yaml".equalsIgnoreCase(format) ? YAML : JSON;
+        return mapper.writeValueAsBytes(spec());
+    }
+
+    private ObjectNode operation(int i) {
+        ObjectNode op = JSON.createObjectNode();
+        op.put("summary", "Operation " + i);
+        ArrayNode parameters = op.putArray("parameters");
+        parameters.addObject()
+                .put("name", "x-request-id")
+                .put("in", "header")
+                .put("required", true)
+                .put("description", "Correlation id")
+                .putObject("schema").put("type", "string");
+        parameters.addObject()
+                .put("name", "page")
+                .put("in", "query")
+                .putObject("schema").put("type", "integer");
+
+        op.putObject("requestBody").putObject("content").putObject("application/json")
+                .putObject("schema").put("$ref", "#/components/schemas/" + schemaName(i % schemas));
+        ObjectNode responses = op.putObject("responses");
+        responses.putObject("200")
+                .put("description", "OK")
+                .putObject("content").putObject("application/json")
+                .putObject("schema").put("$ref", "#/components/schemas/" + schemaName((i + 1) % schemas));
+        ObjectNode error = responses.putObject("400")
+                .put("description", "Bad request")
+                .putObject("content").putObject("application/json")
+                .putObject("schema").put("type", "object");
+        ObjectNode errorProps = error.putObject("properties");
+        errorProps.putObject("code").put("type", "string");
+        errorProps.putObject("message").put("type", "string").put("maxLength", 200);
+        return op;
+    }
+
+    private ObjectNode schema(int i) {
+        ObjectNode schema = objectSchema(schemaDepth);
+        int firstLeaf = schemas - schemas / 2;
+        if (i >= firstLeaf) {
+            return schema;
+        }
+        ObjectNode props = (ObjectNode) schema.get("properties");
+        for (int r = 0; r < refFanOut; r++) {
+            props.putObject("related" + r)
+                    .put("type", "array")
+                    .put("description", "Related items")
+                    .putObject("items").put("$ref", "#/components/schemas/" + schemaName(firstLeaf + (i + r) % (schemas - firstLeaf)));
+        }
+        return schema;
+    }
+
+    private static ObjectNode objectSchema(int depth) {
+        ObjectNode schema = JSON.createObjectNode();
+        schema.put("type", "object");
+        schema.putArray("required").add("id").add("name");
+        ObjectNode props = schema.putObject("properties");
+        props.putObject("id").put("type", "string").put("description", "Identifier").put("pattern", "^[A-Z0-9]{8}$");
+        props.putObject("name").put("type", "string").put("description", "Display name").put("minLength", 1).put("maxLength", 64);
+        props.putObject("amount").put("type", "number").put("minimum", 0).put("maximum", 1000000);
+        props.putObject("status").put("type", "string").putArray("enum").add("ACTIVE").add("INACTIVE");
+        if (depth > 0) {
+            props.set("details", objectSchema(depth - 1));
+        }
+        return schema;
+    }
+
+    private static String schemaName(int i) {
+        return "Schema" + i;
+    }
+
+    static Path writeTemp(byte[] spec, String format) throws IOException {
+        Path file = Files.createTempFile("benchmark-spec-", "." + format);
+        Files.write(file, spec);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+}
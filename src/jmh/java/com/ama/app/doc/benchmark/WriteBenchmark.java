@@ -0,0 +1,135 @@
+package com.ama.app.doc.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ama.app.doc.DocumentWriter;
+import com.ama.app.doc.DynamicSwaggerToWordService;
+import com.ama.app.doc.GenerationMode;
+import com.ama.app.doc.GenerationOptions;
+import com.ama.app.doc.SpecIndex;
+import com.ama.app.doc.StreamingDocxWriter;
+import com.ama.app.doc.XwpfDocumentWriter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writing already flattened tables into a document ({@code write}, which for DOM mode includes
+ * {@code doc.write}), finishing a document whose tables were added beforehand ({@code serialize}:
+ * {@code doc.write} alone for DOM mode, closing the zip when streaming) and the whole pipeline from
+ * the spec file to the finished document ({@code endToEnd}). Output goes to a null stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+    private static final String[] FIELD_COLUMNS = {"Field", "Description", "Type", "Required", "Constraints"};
+
+    @Param({"50", "500"})
+    private int operations;
+
+    @Param({"2"})
+    private int schemaDepth;
+
+    @Param({"2"})
+    private int refFanOut;
+
+    @Param({"DOM", "STREAMING"})
+    private GenerationMode mode;
+
+    private final List<List<String[]>> tables = new ArrayList<>();
+    private Path specFile;
+    private DynamicSwaggerToWordService service;
+    private GenerationOptions options;
+
+    @Setup
+    public void setup() throws IOException {
+        SpecGenerator generator = new SpecGenerator(operations, schemaDepth, refFanOut);
+        JsonNode root = generator.spec();
+        SpecIndex index = SpecIndex.of(root);
+        for (JsonNode schema : root.findValues("schema")) {
+            List<String[]> rows = index.rows(schema);
+            if (rows != null) {
+                tables.add(rows);
+            }
+        }
+        specFile = SpecGenerator.writeTemp(new ObjectMapper().writeValueAsBytes(root), "json");
+        service = new DynamicSwaggerToWordService(1);
+        options = GenerationOptions.of(mode);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        service.shutdown();
+        Files.deleteIfExists(specFile);
+    }
+
+    /** A document with every table added but not yet written, built afresh for each invocation. */
+    @State(Scope.Thread)
+    public static class BuiltDocument {
+        DocumentWriter doc;
+
+        @Setup(Level.Invocation)
+        public void build(WriteBenchmark benchmark) throws IOException {
+            doc = benchmark.fill(benchmark.open());
+        }
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        try (DocumentWriter doc = open()) {
+            fill(doc);
+        }
+    }
+
+    @Benchmark
+    public void serialize(BuiltDocument built) throws IOException {
+        built.doc.close();
+    }
+
+    @Benchmark
+    public void endToEnd() throws Exception {
+        service.generateWordDoc(specFile.toString(), options, OutputStream.nullOutputStream());
+    }
+
+    private DocumentWriter open() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        return mode == GenerationMode.STREAMING ? new StreamingDocxWriter(out) : new XwpfDocumentWriter(out);
+    }
+
+    private DocumentWriter fill(DocumentWriter doc) throws IOException {
+        for (List<String[]> rows : tables) {
+            doc.addSubtitle("Request Parameters");
+            doc.startTable(FIELD_COLUMNS);
+            for (String[] row : rows) {
+                doc.addTableRow(row);
+            }
+            doc.endTable();
+            doc.addBlankParagraph();
+        }
+        return doc;
+    }
+}
@@ -0,0 +1,141 @@
+package com.ama.app.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Closed-loop load: {@code concurrency} workers each send the next request as soon as the previous
+ * one was answered, so the offered load follows the server's pace rather than piling up in the
+ * client. Requests started during the warm-up are sent but not recorded. Every latency of the
+ * measured window is kept, so percentiles are exact. Requests started before the end of the window
+ * are recorded even when they finish after it, so throughput is taken over the time from the start
+ * of the window to the last recorded answer.
+ */
+public class LoadDriver {
+
+    /** A request and the status that counts as success for it. */
+    public record Call(HttpRequest request, int expectedStatus) {
+    }
+
+    /** Outcome of one run; {@code nanos} is sorted and {@code seconds} the measured time. */
+    public record Outcome(long requests, long errors, Map<String, Long> statuses, long[] nanos, double seconds) {
+
+        /** Latency at {@code percentile} (0 to 1) in milliseconds, nearest rank. */
+        public double percentileMillis(double percentile) {
+            if (nanos.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile * nanos.length);
+            return nanos[Math.max(0, Math.min(nanos.length, rank) - 1)] / 1e6;
+        }
+
+        public double meanMillis() {
+            return nanos.length == 0 ? 0 : Arrays.stream(nanos).average().orElse(0) / 1e6;
+        }
+    }
+
+    private final HttpClient client;
+
+    public LoadDriver(HttpClient client) {
+        this.client = client;
+    }
+
+    public Outcome run(Supplier<Call> calls, int concurrency, Duration warmup, Duration duration) throws Exception {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Worker>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                Worker worker = new Worker();
+                futures.add(workers.submit(() -> worker.run(calls, measureFrom, end)));
+            }
+            long requests = 0;
+            long errors = 0;
+            int count = 0;
+            long finished = measureFrom;
+            Map<String, Long> statuses = new TreeMap<>();
+            List<Worker> done = new ArrayList<>();
+            for (Future<Worker> future : futures) {
+                Worker worker = future.get();
+                done.add(worker);
+                requests += worker.requests;
+                errors += worker.errors;
+                count += worker.count;
+                finished = Math.max(finished, worker.finished);
+                worker.statuses.forEach((status, n) -> statuses.merge(status, n, Long::sum));
+            }
+            long[] nanos = new long[count];
+            int position = 0;
+            for (Worker worker : done) {
+                System.arraycopy(worker.nanos, 0, nanos, position, worker.count);
+                position += worker.count;
+            }
+            Arrays.sort(nanos);
+            // nothing recorded leaves no measured time; the configured one gives a throughput of 0
+            long measured = count == 0 ? duration.toNanos() : finished - measureFrom;
+            return new Outcome(requests, errors, statuses, nanos, measured / 1e9);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private class Worker {
+        long requests;
+        long errors;
+        final Map<String, Long> statuses = new TreeMap<>();
+        long[] nanos = new long[1024];
+        int count;
+        /** When the last recorded request was answered. */
+        long finished;
+
+        Worker run(Supplier<Call> calls, long measureFrom, long end) {
+            long start;
+            while ((start = System.nanoTime()) < end) {
+                Call call = calls.get();
+                String status;
+                boolean success;
+                try {
+                    int code = client.send(call.request(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    status = String.valueOf(code);
+                    success = code == call.expectedStatus();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    status = e.getClass().getSimpleName();
+                    success = false;
+                }
+                long now = System.nanoTime();
+                if (start >= measureFrom) {
+                    record(status, success, now - start);
+                    finished = now;
+                }
+            }
+            return this;
+        }
+
+        private void record(String status, boolean success, long latency) {
+            requests++;
+            if (!success) {
+                errors++;
+            }
+            statuses.merge(status, 1L, Long::sum);
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latency;
+        }
+    }
+}
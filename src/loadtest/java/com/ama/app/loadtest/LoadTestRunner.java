@@ -0,0 +1,256 @@
+package com.ama.app.loadtest;
+
+import static com.ama.app.constants.ApplicationConstants.HEADER_CHANNEL_ID;
+import static com.ama.app.constants.ApplicationConstants.HEADER_COUNTRY_OF_ORIGIN;
+import static com.ama.app.constants.ApplicationConstants.HEADER_TRANSACTION_DATE_TIME;
+import static com.ama.app.constants.ApplicationConstants.HEADER_TRANSACTION_ID;
+import static com.ama.app.constants.ApplicationConstants.HEADER_TRANSACTION_TIME_ZONE;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.ama.app.NotificationServiceApplication;
+import com.ama.app.loadtest.LoadDriver.Call;
+import com.ama.app.loadtest.LoadDriver.Outcome;
+import com.ama.app.loadtest.Payloads.Mix;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Boots the application on a random local port once per Tomcat thread configuration, drives
+ * {@code /api/notification/create} and {@code /api/documentation/generate} at each concurrency level
+ * and writes throughput, latency percentiles and error rates to {@code target/loadtest-result.json}.
+ * The file has a stable layout so results of two builds can be diffed.
+ * <p>
+ * Settings are {@code key=value} arguments, see {@link #DEFAULTS}; arguments starting with
+ * {@code --} are passed to the application, e.g. {@code --notification.dispatch.queue-capacity=1024}.
+ * <pre>
+ * mvn -Ploadtest compile exec:exec -Dloadtest.args="concurrency=8,64 duration=30 scenarios=create"
+ * </pre>
+ * {@code threads=virtual} sets {@code spring.threads.virtual.enabled}, which Spring Boot only honours
+ * on Java 21 and later; on an older runtime the configuration is listed as skipped instead of being
+ * measured as a second platform run. Client and server share the machine, so compare results taken
+ * on the same host only. The document cache and the compiled spec store are off unless
+ * {@code generate.cache=true}, so every generate request parses and renders.
+ */
+public class LoadTestRunner {
+
+    static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("threads", "platform,virtual");
+        DEFAULTS.put("scenarios", "create,generate");
+        DEFAULTS.put("concurrency", "16,64");
+        DEFAULTS.put("warmup", "5");
+        DEFAULTS.put("duration", "15");
+        // notification kinds and their weights: minimal, full or invalid
+        DEFAULTS.put("notification.mix", "minimal:80,full:15,invalid:5");
+        // operations per generated spec and their weights
+        DEFAULTS.put("spec.mix", "20:60,200:30,1000:10");
+        DEFAULTS.put("generate.format", "DOCX");
+        DEFAULTS.put("generate.mode", "STREAMING");
+        DEFAULTS.put("generate.cache", "false");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("out", "target/loadtest-result.json");
+    }
+
+    private static final String[] CHANNELS = {"WEB", "MOBILE", "BRANCH", "PARTNER"};
+    private static final String[] COUNTRIES = {"US", "GB", "IN", "DE", "SG"};
+
+    /** The whole report; records keep their component order, so the JSON layout is stable. */
+    record Report(String startedAt, String java, int processors, Map<String, String> settings,
+            List<String> applicationArgs, List<Run> runs, List<String> skipped) {
+    }
+
+    record Run(String threads, String scenario, int concurrency, double seconds, long requests, long errors,
+            BigDecimal errorRate, BigDecimal throughputPerSecond, Latency latencyMs, Map<String, Long> statuses) {
+    }
+
+    record Latency(BigDecimal mean, BigDecimal p50, BigDecimal p99, BigDecimal p999, BigDecimal max) {
+    }
+
+    private final Map<String, String> settings;
+    private final List<String> applicationArgs;
+    private final Path workDir;
+    private final AtomicLong transactions = new AtomicLong();
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    LoadTestRunner(Map<String, String> settings, List<String> applicationArgs) throws IOException {
+        this.settings = settings;
+        this.applicationArgs = applicationArgs;
+        this.workDir = Files.createTempDirectory("loadtest-");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>(DEFAULTS);
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+            } else if (arg.contains("=") && DEFAULTS.containsKey(arg.substring(0, arg.indexOf('=')))) {
+                settings.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                System.err.println("Unknown argument " + arg + ", settings are " + DEFAULTS.keySet());
+                System.exit(2);
+            }
+        }
+        // the restarter would reload the application in its own class loader on every boot
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        new LoadTestRunner(settings, applicationArgs).run();
+    }
+
+    void run() throws Exception {
+        String startedAt = Instant.now().toString();
+        List<Run> runs = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (String threads : list("threads")) {
+            if (threads.equals("virtual") && Runtime.version().feature() < 21) {
+                skipped.add("virtual: needs Java 21, running on " + Runtime.version());
+                continue;
+            }
+            try (ConfigurableApplicationContext context = boot(threads)) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                String base = "http://localhost:" + port
+                        + context.getEnvironment().getProperty("server.servlet.context-path", "");
+                for (String scenario : list("scenarios")) {
+                    Supplier<Call> calls = calls(scenario, base);
+                    for (String concurrency : list("concurrency")) {
+                        runs.add(measure(threads, scenario, Integer.parseInt(concurrency), calls));
+                    }
+                }
+            }
+        }
+
+        Report report = new Report(startedAt, Runtime.version().toString(), Runtime.getRuntime().availableProcessors(),
+                settings, applicationArgs, runs, skipped);
+        Path out = Paths.get(settings.get("out"));
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), report);
+        System.out.println("Results written to " + out.toAbsolutePath());
+    }
+
+    private ConfigurableApplicationContext boot(String threads) {
+        Path dir = workDir.resolve(threads);
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.threads.virtual.enabled", threads.equals("virtual"));
+        properties.put("notification.journal.dir", dir.resolve("journal").toString());
+        properties.put("documentation.cache.disk.dir", dir.resolve("cache").toString());
+        properties.put("documentation.compiled.dir", dir.resolve("compiled").toString());
+        properties.put("documentation.jobs.dir", dir.resolve("jobs").toString());
+        properties.put("documentation.self.prewarm", false);
+        // a log line per request would mostly measure the console
+        properties.put("logging.level.com.ama.app", "WARN");
+        boolean cache = Boolean.parseBoolean(settings.get("generate.cache"));
+        properties.put("documentation.compiled.enabled", cache);
+        if (!cache) {
+            properties.put("documentation.cache.memory.max-bytes", 0);
+            properties.put("documentation.cache.disk.max-bytes", 0);
+        }
+        return new SpringApplicationBuilder(NotificationServiceApplication.class)
+                .properties(properties)
+                .run(applicationArgs.toArray(String[]::new));
+    }
+
+    private Supplier<Call> calls(String scenario, String base) throws IOException {
+        long seed = Long.parseLong(settings.get("seed"));
+        switch (scenario) {
+            case "create" -> {
+                URI uri = URI.create(base + "/api/notification/create");
+                Map<String, Integer> weights = Payloads.weights(settings.get("notification.mix"));
+                Map<String, List<byte[]>> bodies = new LinkedHashMap<>();
+                for (String kind : weights.keySet()) {
+                    bodies.put(kind, Payloads.notifications(kind, seed));
+                }
+                Mix<String> kinds = new Mix<>(weights);
+                return () -> {
+                    String kind = kinds.next();
+                    List<byte[]> variants = bodies.get(kind);
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .header(HEADER_CHANNEL_ID, CHANNELS[random.nextInt(CHANNELS.length)])
+                            .header(HEADER_COUNTRY_OF_ORIGIN, COUNTRIES[random.nextInt(COUNTRIES.length)])
+                            .header(HEADER_TRANSACTION_DATE_TIME, OffsetDateTime.now(ZoneOffset.UTC).toString())
+                            .header(HEADER_TRANSACTION_TIME_ZONE, "UTC")
+                            // unique, or the idempotency cache would answer with the first response
+                            .header(HEADER_TRANSACTION_ID, runId + "-" + transactions.incrementAndGet())
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(variants.get(random.nextInt(variants.size()))))
+                            .build();
+                    return new Call(request, Payloads.expectedStatus(kind));
+                };
+            }
+            case "generate" -> {
+                Map<HttpRequest, Integer> weights = new LinkedHashMap<>();
+                for (Map.Entry<String, Integer> size : Payloads.weights(settings.get("spec.mix")).entrySet()) {
+                    Path spec = Payloads.spec(Files.createDirectories(workDir.resolve("specs")), Integer.parseInt(size.getKey()));
+                    URI uri = URI.create(base + "/api/documentation/generate"
+                            + "?yamlPath=" + URLEncoder.encode(spec.toString(), StandardCharsets.UTF_8)
+                            + "&format=" + settings.get("generate.format")
+                            + "&mode=" + settings.get("generate.mode"));
+                    weights.put(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(), size.getValue());
+                }
+                Mix<HttpRequest> requests = new Mix<>(weights);
+                return () -> new Call(requests.next(), 200);
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario " + scenario + ", expected create or generate");
+        }
+    }
+
+    private Run measure(String threads, String scenario, int concurrency, Supplier<Call> calls) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Outcome outcome = new LoadDriver(client).run(calls, concurrency,
+                Duration.ofSeconds(Long.parseLong(settings.get("warmup"))),
+                Duration.ofSeconds(Long.parseLong(settings.get("duration"))));
+        Run run = new Run(threads, scenario, concurrency, outcome.seconds(), outcome.requests(), outcome.errors(),
+                round(outcome.requests() == 0 ? 0 : (double) outcome.errors() / outcome.requests()),
+                round(outcome.requests() / outcome.seconds()),
+                new Latency(round(outcome.meanMillis()), round(outcome.percentileMillis(0.5)),
+                        round(outcome.percentileMillis(0.99)), round(outcome.percentileMillis(0.999)),
+                        round(outcome.percentileMillis(1))),
+                outcome.statuses());
+        System.out.printf("%-8s %-8s c=%-4d %10.1f req/s  p50 %8.3f ms  p99 %8.3f ms  p99.9 %8.3f ms  errors %d%n",
+                threads, scenario, concurrency, run.throughputPerSecond(), run.latencyMs().p50(),
+                run.latencyMs().p99(), run.latencyMs().p999(), run.errors());
+        return run;
+    }
+
+    private List<String> list(String setting) {
+        return Arrays.stream(settings.get(setting).split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static BigDecimal round(double value) {
+        return BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP);
+    }
+}
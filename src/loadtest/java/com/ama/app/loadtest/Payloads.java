@@ -0,0 +1,179 @@
+package com.ama.app.loadtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.ama.app.request.NotificationRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+
+/**
+ * Request bodies of the load test, generated up front from a fixed seed so that runs of different
+ * builds send the same bytes.
+ * <ul>
+ * <li>Notifications: {@code minimal} has the mandatory fields only, {@code full} every field with a
+ * 250 character description, {@code invalid} a 101 character name and is expected to get a 400.</li>
+ * <li>Specs: OpenAPI 3 YAML files with the given number of operations, written to a directory.</li>
+ * </ul>
+ */
+public class Payloads {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final YAMLMapper YAML = new YAMLMapper();
+    private static final int VARIANTS = 64;
+
+    private Payloads() {
+    }
+
+    /** {@code VARIANTS} serialized requests of {@code kind}. */
+    public static List<byte[]> notifications(String kind, long seed) throws IOException {
+        Random random = new Random(seed ^ kind.hashCode());
+        List<byte[]> bodies = new ArrayList<>();
+        for (int i = 0; i < VARIANTS; i++) {
+            bodies.add(JSON.writeValueAsBytes(notification(kind, random)));
+        }
+        return bodies;
+    }
+
+    /** HTTP status a notification of {@code kind} is answered with. */
+    public static int expectedStatus(String kind) {
+        return "invalid".equals(kind) ? 400 : 200;
+    }
+
+    private static NotificationRequest notification(String kind, Random random) {
+        NotificationRequest request = new NotificationRequest();
+        request.setByteValue((byte) random.nextInt());
+        request.setShortValue((short) random.nextInt());
+        request.setIntValue(random.nextInt());
+        request.setLongValue(random.nextLong());
+        request.setFloatValue(random.nextFloat());
+        request.setDoubleValue(random.nextDouble());
+        request.setBooleanValue(random.nextBoolean());
+        request.setCharValue((char) ('a' + random.nextInt(26)));
+        switch (kind) {
+            case "minimal" -> request.setName(text(random, 1 + random.nextInt(40)));
+            case "full" -> {
+                request.setName(text(random, 100));
+                request.setDescription(text(random, 250));
+                request.setByteWrapper((byte) random.nextInt());
+                request.setShortWrapper((short) random.nextInt());
+                request.setIntegerWrapper(random.nextInt());
+                request.setLongWrapper(random.nextLong());
+                request.setFloatWrapper(random.nextFloat());
+                request.setDoubleWrapper(random.nextDouble());
+                request.setBooleanWrapper(random.nextBoolean());
+                request.setCharWrapper((char) ('A' + random.nextInt(26)));
+                request.setAmount(BigDecimal.valueOf(random.nextInt(10_000_000), 2));
+            }
+            case "invalid" -> request.setName(text(random, 101));
+            default -> throw new IllegalArgumentException("Unknown notification kind " + kind);
+        }
+        return request;
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes a spec with {@code operations} operations into {@code dir}. Every operation has a header
+     * parameter, a request body and two responses, referring to component schemas two levels deep.
+     */
+    public static Path spec(Path dir, int operations) throws IOException {
+        ObjectNode root = JSON.createObjectNode();
+        root.put("openapi", "3.0.1");
+        root.putObject("info")
+                .put("title", "Load test API")
+                .put("description", operations + " operations")
+                .put("version", "1.0");
+        int schemas = Math.max(1, operations / 4);
+        ObjectNode paths = root.putObject("paths");
+        for (int i = 0; i < operations; i++) {
+            ObjectNode path = paths.has("/resource" + i / 2)
+                    ? (ObjectNode) paths.get("/resource" + i / 2)
+                    : paths.putObject("/resource" + i / 2);
+            ObjectNode op = path.putObject(i % 2 == 0 ? "get" : "post");
+            op.put("summary", "Operation " + i);
+            op.putArray("parameters").addObject()
+                    .put("name", "x-request-id").put("in", "header").put("required", true)
+                    .putObject("schema").put("type", "string");
+            op.putObject("requestBody").putObject("content").putObject("application/json")
+                    .putObject("schema").put("$ref", "#/components/schemas/Schema" + i % schemas);
+            ObjectNode responses = op.putObject("responses");
+            responses.putObject("200").put("description", "OK")
+                    .putObject("content").putObject("application/json")
+                    .putObject("schema").put("$ref", "#/components/schemas/Schema" + (i + 1) % schemas);
+            responses.putObject("400").put("description", "Bad request");
+        }
+        ObjectNode components = root.putObject("components").putObject("schemas");
+        for (int i = 0; i < schemas; i++) {
+            components.set("Schema" + i, schema(2));
+        }
+        Path file = dir.resolve("spec-" + operations + ".yaml");
+        YAML.writeValue(file.toFile(), root);
+        return file;
+    }
+
+    private static ObjectNode schema(int depth) {
+        ObjectNode schema = JSON.createObjectNode();
+        schema.put("type", "object");
+        schema.putArray("required").add("id");
+        ObjectNode properties = schema.putObject("properties");
+        properties.putObject("id").put("type", "string").put("pattern", "^[A-Z0-9]{8}$");
+        properties.putObject("name").put("type", "string").put("maxLength", 64);
+        properties.putObject("amount").put("type", "number").put("minimum", 0);
+        if (depth > 0) {
+            properties.set("details", schema(depth - 1));
+        }
+        return schema;
+    }
+
+    /**
+     * Parses {@code a:3,b:1} into its weights, in order. An entry without a weight counts once.
+     */
+    public static Map<String, Integer> weights(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : 1);
+        }
+        return weights;
+    }
+
+    /** Weighted random choice between values, each drawn with its share of the total weight. */
+    public static class Mix<T> {
+        private final List<T> values = new ArrayList<>();
+        private final int[] cumulative;
+
+        public Mix(Map<T, Integer> weights) {
+            cumulative = new int[weights.size()];
+            int total = 0;
+            for (Map.Entry<T, Integer> weight : weights.entrySet()) {
+                total += weight.getValue();
+                cumulative[values.size()] = total;
+                values.add(weight.getKey());
+            }
+        }
+
+        public T next() {
+            int r = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+            int i = 0;
+            while (r >= cumulative[i]) {
+                i++;
+            }
+            return values.get(i);
+        }
+    }
+}
@@ -8,4 +8,9 @@ public class ApplicationConstants {
 	public static final String HEADER_COUNTRY_OF_ORIGIN = "country_of_origin";
 	public static final String HEADER_TRANSACTION_ID = "transaction_id";
 
+	public static final String ERROR_CODE_SUCCESS = "0";
+	public static final String ERROR_CODE_MALFORMED = "E001";
+	public static final String ERROR_CODE_INVALID = "E002";
+	public static final String ERROR_CODE_UNAVAILABLE = "E003";
+
 }
@@ -1,39 +1,470 @@
 package com.ama.app.controller;
 
-import java.io.File;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.io.input.ProxyInputStream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.ama.app.doc.DocumentCache;
+import com.ama.app.doc.DocumentFormat;
+import com.ama.app.doc.DocumentationBatchService;
+import com.ama.app.doc.DocumentationJob;
+import com.ama.app.doc.DocumentationJobService;
 import com.ama.app.doc.DynamicSwaggerToWordService;
+import com.ama.app.doc.GenerationOptions;
+import com.ama.app.doc.PreparedDocument;
+import com.ama.app.doc.SelfDocumentationService;
+import com.ama.app.doc.SpecSource;
+import com.ama.app.doc.TreeSpecSource;
+import com.ama.app.request.DocumentCacheStatsResponse;
+import com.ama.app.request.DocumentationBatchRequest;
+import com.ama.app.request.DocumentationJobResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import jakarta.validation.Valid;
 
 
 @RestController
 @RequestMapping("/api/documentation")
 public class DocumentationController {
 
+    /** Optional Content-Encoding applied on top of the generated document. */
+    public enum Compression {
+        NONE,
+        GZIP,
+        DEFLATE
+    }
+
     @Autowired
     private DynamicSwaggerToWordService docGenerator;
 
+    @Autowired
+    private DocumentCache documentCache;
+
+    @Autowired
+    private DocumentationJobService jobService;
+
+    @Autowired
+    private DocumentationBatchService batchService;
+
+    @Autowired
+    private SelfDocumentationService selfDocumentation;
+
+    @Value("${documentation.jobs.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    @Value("${documentation.upload.max-bytes:10485760}")
+    private long maxUploadBytes;
+
+    /**
+     * Streams the generated document straight into the response (chunked, no temp file).
+     * Generation options ({@code format}, {@code mode}, {@code parallel}, {@code streamingParse}) are bound from
+     * the query string; {@code format=MARKDOWN} or {@code HTML} writes text without going through POI.
+     * <p>
+     * Documents are cached by the hash of the spec bytes, which is also the weak ETag: a matching
+     * {@code If-None-Match} gets a 304 and a cache hit is served without parsing the spec. The spec is
+     * copied while it is hashed and a miss is rendered from that copy, so the key and the document
+     * always agree. On a miss the spec is parsed before the response is committed so that parse errors
+     * still map to an error status; the document is then rendered into the cache and served from it,
+     * and concurrent misses of the same document wait for that render without holding a request thread.
+     * With {@code incremental} and {@code changeSummary} the document depends on the previous render and
+     * bypasses the cache, as every document does when the cache is disabled.
+     */
     @PostMapping("/generate")
-    public ResponseEntity<Resource> generateDocumentation(
-            @RequestParam("yamlPath") String yamlPath) throws Exception {
-        
-        File wordDoc = docGenerator.generateWordDocFromYaml(yamlPath);
-        
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> generateDocumentation(
+            @RequestParam("yamlPath") String yamlPath,
+            GenerationOptions options,
+            @RequestParam(value = "compression", defaultValue = "NONE") Compression compression,
+            @RequestParam(value = "compressionLevel", defaultValue = "-1") int compressionLevel,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws Exception {
+
+        checkCompressionLevel(compressionLevel);
+        if (!options.isCacheable() || !documentCache.isEnabled()) {
+            PreparedDocument document = docGenerator.prepare(yamlPath, options);
+            return CompletableFuture.completedFuture(attachment(ResponseEntity.ok(), options.getFormat(), compression)
+                .body(encode(document::writeTo, compression, compressionLevel)));
+        }
+        if (options.getSpecId() == null) {
+            // the snapshot has a name of its own, incremental renders still go by the spec path
+            options.setSpecId(yamlPath);
+        }
+        DocumentCache.Snapshot snapshot = documentCache.snapshot(Paths.get(yamlPath), options.cacheVariant());
+        return cachedDocument(snapshot.key(), () -> docGenerator.prepare(snapshot.file().toString(), options), snapshot,
+                () -> docGenerator.prepare(yamlPath, options), options, compression, compressionLevel, ifNoneMatch);
+    }
+
+    /**
+     * Like {@code /generate}, for a spec sent as the raw request body (JSON or YAML, told apart by its
+     * first character). The body is parsed straight from the request stream and hashed on the way for
+     * the cache key, so it is never buffered; {@code streamingParse} does not apply. Bodies larger than
+     * {@code documentation.upload.max-bytes} get a 413.
+     */
+    @PostMapping("/generate/upload")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> generateFromUpload(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            GenerationOptions options,
+            @RequestParam(value = "compression", defaultValue = "NONE") Compression compression,
+            @RequestParam(value = "compressionLevel", defaultValue = "-1") int compressionLevel,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws Exception {
+
+        checkUploadSize(contentLength);
+        return uploadedDocument(body, options, compression, compressionLevel, ifNoneMatch);
+    }
+
+    /** Multipart variant of {@code /generate/upload}; the spec is the {@code spec} part. */
+    @PostMapping(value = "/generate/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> generateFromMultipart(
+            @RequestPart("spec") MultipartFile spec,
+            GenerationOptions options,
+            @RequestParam(value = "compression", defaultValue = "NONE") Compression compression,
+            @RequestParam(value = "compressionLevel", defaultValue = "-1") int compressionLevel,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws Exception {
+
+        checkUploadSize(spec.getSize());
+        try (InputStream in = spec.getInputStream()) {
+            return uploadedDocument(in, options, compression, compressionLevel, ifNoneMatch);
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> uploadedDocument(InputStream body,
+            GenerationOptions options, Compression compression, int compressionLevel, String ifNoneMatch)
+            throws IOException {
+
+        checkCompressionLevel(compressionLevel);
+        MessageDigest digest = documentCache.keyDigest(options.cacheVariant());
+        SizeLimitedInputStream limited = new SizeLimitedInputStream(body, maxUploadBytes);
+        JsonNode root;
+        try (InputStream in = new DigestInputStream(limited, digest)) {
+            root = docGenerator.readSpec(in);
+            // the parser may stop before trailing whitespace, the key covers every byte
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException | RuntimeException e) {
+            if (limited.isExceeded()) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Spec exceeds " + maxUploadBytes + " bytes");
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Spec could not be parsed: " + e.getMessage(), e);
+        }
+        if (root == null || !root.isObject()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Spec must be a JSON or YAML object");
+        }
+        SpecSource spec = new TreeSpecSource(root);
+        DocumentPreparer document = () -> out -> docGenerator.generateWordDoc(spec, options, out);
+        if (!options.isCacheable() || !documentCache.isEnabled()) {
+            return CompletableFuture.completedFuture(attachment(ResponseEntity.ok(), options.getFormat(), compression)
+                .body(encode(document.prepare()::writeTo, compression, compressionLevel)));
+        }
+        return cachedDocument(documentCache.key(digest), document, null, document, options,
+                compression, compressionLevel, ifNoneMatch);
+    }
+
+    /**
+     * Answers from the cache entry {@code key}, or renders it into the cache and answers from there once
+     * it is in. {@code spec} is only prepared by the request that claims the miss, before the response is
+     * committed; {@code specBytes} is closed once they are no longer needed. When the entry is not there
+     * after the render, because it failed, was not kept or the fill pool was full, the document is
+     * rendered for this response alone from {@code uncached}, without an ETag.
+     */
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> cachedDocument(String key, DocumentPreparer spec,
+            Closeable specBytes, DocumentPreparer uncached, GenerationOptions options, Compression compression,
+            int compressionLevel, String ifNoneMatch) throws IOException {
+
+        // a different Content-Encoding is a different representation, so it gets its own tag; weak, since the
+        // key covers the spec and the options but a render of them is not guaranteed to be byte identical
+        String etag = "W/\"" + key + (compression == Compression.NONE ? "" : "-" + compression.name().toLowerCase()) + "\"";
+        if (matches(ifNoneMatch, etag)) {
+            close(specBytes);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+        }
+
+        InputStream cached = documentCache.open(key);
+        if (cached != null) {
+            close(specBytes);
+            return CompletableFuture.completedFuture(cachedResponse(cached, etag, options, compression, compressionLevel));
+        }
+        CompletableFuture<Void> rendered = documentCache.claim(key);
+        if (rendered == null) {
+            PreparedDocument prepared;
+            try {
+                prepared = spec.prepare();
+            } catch (IOException | RuntimeException e) {
+                documentCache.release(key);
+                close(specBytes);
+                throw e;
+            }
+            rendered = documentCache.fill(key, prepared, specBytes);
+        } else {
+            close(specBytes);
+        }
+        return rendered.thenApply(done -> {
+            InputStream in = documentCache.open(key);
+            if (in != null) {
+                return cachedResponse(in, etag, options, compression, compressionLevel);
+            }
+            return attachment(ResponseEntity.ok(), options.getFormat(), compression)
+                .body(encode(out -> uncached.prepare().writeTo(out), compression, compressionLevel));
+        });
+    }
+
+    private ResponseEntity<StreamingResponseBody> cachedResponse(InputStream cached, String etag, GenerationOptions options,
+            Compression compression, int compressionLevel) {
+        return attachment(ResponseEntity.ok().eTag(etag), options.getFormat(), compression)
+            .body(encode(out -> {
+                try (InputStream in = cached) {
+                    in.transferTo(out);
+                }
+            }, compression, compressionLevel));
+    }
+
+    private static void close(Closeable closeable) throws IOException {
+        if (closeable != null) {
+            closeable.close();
+        }
+    }
+
+    private static void checkCompressionLevel(int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "compressionLevel must be between -1 and 9");
+        }
+    }
+
+    private void checkUploadSize(Long size) {
+        if (size != null && size > maxUploadBytes) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Spec exceeds " + maxUploadBytes + " bytes");
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder attachment(ResponseEntity.BodyBuilder response, DocumentFormat format,
+            Compression compression) {
+        response.contentType(MediaType.parseMediaType(format.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                   "attachment; filename=\"APIDocumentation_" + System.currentTimeMillis() + "." + format.getExtension() + "\"");
+        if (compression != Compression.NONE) {
+            response.header(HttpHeaders.CONTENT_ENCODING, compression.name().toLowerCase());
+        }
+        return response;
+    }
+
+    /**
+     * Documentation of this service, rendered from the OpenAPI model springdoc builds in process.
+     * The default document is generated at startup; other options are rendered once on first use.
+     */
+    @GetMapping("/self")
+    public ResponseEntity<byte[]> selfDocumentation(GenerationOptions options) {
+        byte[] document = selfDocumentation.document(options).join();
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(options.getFormat().getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                   "attachment; filename=\"APIDocumentation_self." + options.getFormat().getExtension() + "\"")
+            .body(document);
+    }
+
+    @GetMapping("/cache/stats")
+    public DocumentCacheStatsResponse cacheStats() {
+        return documentCache.stats();
+    }
+
+    /**
+     * Renders every spec concurrently and streams the documents into one ZIP as they complete,
+     * followed by a {@code manifest.json} with the outcome of each spec.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> generateBatch(
+            @Valid @RequestBody DocumentationBatchRequest request,
+            GenerationOptions options) {
+
+        if (request.getYamlPaths() == null || request.getYamlPaths().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "yamlPaths is required");
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                   "attachment; filename=\"APIDocumentation_batch_" + System.currentTimeMillis() + ".zip\"")
+            .body(out -> batchService.writeZip(request.getYamlPaths(), options, out));
+    }
+
+    /**
+     * Queues a generation and returns immediately with the job id. Responds with 429 and
+     * {@code Retry-After} when the worker pool and its queue are full.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<DocumentationJobResponse> submitJob(
+            @RequestParam("yamlPath") String yamlPath,
+            GenerationOptions options) {
+
+        if (!Files.isReadable(Paths.get(yamlPath))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Spec " + yamlPath + " is not readable");
+        }
+        DocumentationJob job;
+        try {
+            job = jobService.submit(yamlPath, options);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build();
+        }
+        return ResponseEntity.accepted()
+            .location(ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}").buildAndExpand(job.getId()).toUri())
+            .body(toResponse(job));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public DocumentationJobResponse jobStatus(@PathVariable("jobId") String jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<Resource> jobResult(@PathVariable("jobId") String jobId) {
+        DocumentationJob job = findJob(jobId);
+        if (job.getStatus() != DocumentationJob.Status.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Job " + jobId + " is " + job.getStatus());
+        }
+        DocumentFormat format = job.getOptions().getFormat();
         return ResponseEntity.ok()
-            .contentType(MediaType.APPLICATION_OCTET_STREAM)
-            .header(HttpHeaders.CONTENT_DISPOSITION, 
-                   "attachment; filename=\"" + wordDoc.getName() + "\"")
-            .body(new FileSystemResource(wordDoc));
+            .contentType(MediaType.parseMediaType(format.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                   "attachment; filename=\"APIDocumentation_" + job.getId() + "." + format.getExtension() + "\"")
+            .body(new FileSystemResource(job.getResult()));
+    }
+
+    private DocumentationJob findJob(String jobId) {
+        DocumentationJob job = jobService.find(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired job " + jobId);
+        }
+        return job;
     }
 
+    private DocumentationJobResponse toResponse(DocumentationJob job) {
+        DocumentationJobResponse response = new DocumentationJobResponse();
+        response.setJobId(job.getId());
+        response.setStatus(job.getStatus().name());
+        response.setSubmittedAt(job.getSubmittedAt());
+        response.setFinishedAt(job.getFinishedAt());
+        response.setExpiresAt(jobService.expiresAt(job));
+        response.setError(job.getError());
+        return response;
+    }
+
+    private StreamingResponseBody encode(StreamingResponseBody document, Compression compression, int level) {
+        return switch (compression) {
+            case GZIP -> out -> {
+                LevelGzipOutputStream gzip = new LevelGzipOutputStream(out, level);
+                try {
+                    document.writeTo(gzip);
+                    gzip.finish();
+                } finally {
+                    gzip.release();
+                }
+            };
+            case DEFLATE -> out -> {
+                Deflater deflater = new Deflater(level);
+                try {
+                    DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater, 8192);
+                    document.writeTo(deflate);
+                    deflate.finish();
+                } finally {
+                    deflater.end();
+                }
+            };
+            default -> document;
+        };
+    }
+
+    /** Weak comparison as required for If-None-Match (RFC 9110 13.1.2). */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaqueTag(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /** GZIPOutputStream only exposes its deflater to subclasses, so the level is applied here. */
+    private static class LevelGzipOutputStream extends GZIPOutputStream {
+
+        LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+
+        /** Frees the native deflater without closing the response stream. */
+        void release() {
+            def.end();
+        }
+    }
+
+    @FunctionalInterface
+    private interface DocumentPreparer {
+        PreparedDocument prepare() throws IOException;
+    }
+
+    /** Fails reads once more than {@code max} bytes came through, remembering that it did. */
+    private static class SizeLimitedInputStream extends ProxyInputStream {
+        private final long max;
+        private long count;
+        private boolean exceeded;
+
+        SizeLimitedInputStream(InputStream in, long max) {
+            super(in);
+            this.max = max;
+        }
+
+        @Override
+        protected void afterRead(int n) throws IOException {
+            if (n > 0) {
+                count += n;
+            }
+            if (count > max) {
+                exceeded = true;
+                throw new IOException("Spec exceeds " + max + " bytes");
+            }
+        }
+
+        boolean isExceeded() {
+            return exceeded;
+        }
+    }
 }
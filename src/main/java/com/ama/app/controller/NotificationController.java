@@ -6,16 +6,37 @@ import static com.ama.app.constants.ApplicationConstants.HEADER_COUNTRY_OF_ORIGI
 import static com.ama.app.constants.ApplicationConstants.HEADER_TRANSACTION_DATE_TIME;
 import static com.ama.app.constants.ApplicationConstants.HEADER_TRANSACTION_ID;
 import static com.ama.app.constants.ApplicationConstants.HEADER_TRANSACTION_TIME_ZONE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.ama.app.request.NotificationEnvelope;
+import com.ama.app.request.NotificationJournalResponse;
+import com.ama.app.request.NotificationLatencyResponse;
 import com.ama.app.request.NotificationRequest;
 import com.ama.app.request.NotificationResponse;
+import com.ama.app.service.IdempotencyCache;
+import com.ama.app.service.NotificationDispatcher;
+import com.ama.app.service.NotificationMetrics;
+import com.ama.app.service.NotificationService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
@@ -26,6 +47,23 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping("/api/notification")
 public class NotificationController {
 
+	@Autowired
+	private NotificationService notificationService;
+
+	private static final int MAX_JOURNAL_LIMIT = 1000;
+
+	@Autowired
+	private IdempotencyCache idempotencyCache;
+
+	@Autowired
+	private NotificationDispatcher dispatcher;
+
+	@Autowired
+	private NotificationMetrics metrics;
+
+	@Value("${notification.dispatch.retry-after-seconds:1}")
+	private int retryAfterSeconds;
+
 	@Operation(summary = "notification-service", description = "notification-service", tags = { "notification-service" })
 	@PostMapping(value = "/create", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<NotificationResponse> handleCreateNotification(
@@ -38,12 +76,69 @@ public class NotificationController {
 
 	    log.info("Inside NotificationController transactionIdentifier : {}", transactionIdentifier);
 
+	    NotificationEnvelope notification = envelope(channelId, transactionDateTime, transactionTimeZone, countryOfOrigin, transactionIdentifier);
+	    notification.setRequest(request);
+	    try {
+	        // a retry of the same transaction gets the original response
+	        return ResponseEntity.ok(idempotencyCache.get(transactionIdentifier, channelId,
+	            () -> notificationService.create(notification)));
+	    } catch (RejectedExecutionException e) {
+	        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+	            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+	            .build();
+	    }
+	}
+
+	@Operation(summary = "notification-service bulk create",
+	        description = "Creates one notification per line of a newline-delimited JSON body and streams back one response line per record, in order. Invalid records get an error response without ending the stream.",
+	        tags = { "notification-service" })
+	@PostMapping(value = "/create/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> handleBulkCreateNotification(
+	        @RequestHeader(name = HEADER_CHANNEL_ID, required = true) String channelId,
+	        @RequestHeader(name = HEADER_TRANSACTION_DATE_TIME, required = true) String transactionDateTime,
+	        @RequestHeader(name = HEADER_TRANSACTION_TIME_ZONE, required = true) String transactionTimeZone,
+	        @RequestHeader(name = HEADER_COUNTRY_OF_ORIGIN, required = true) String countryOfOrigin,
+	        @RequestHeader(name = HEADER_TRANSACTION_ID, required = true) String transactionIdentifier,
+	        InputStream body) {
+
+	    log.info("Inside NotificationController bulk transactionIdentifier : {}", transactionIdentifier);
+
+	    NotificationEnvelope headers = envelope(channelId, transactionDateTime, transactionTimeZone, countryOfOrigin, transactionIdentifier);
+	    return ResponseEntity.ok()
+	        .contentType(MediaType.APPLICATION_NDJSON)
+	        .body(out -> notificationService.createBulk(body, out, headers));
+	}
+
+	@Operation(summary = "notification-service journal",
+	        description = "Reads accepted notifications back from the journal, starting at offset. Continue with the returned nextOffset.",
+	        tags = { "notification-service" })
+	@GetMapping(value = "/journal", produces = MediaType.APPLICATION_JSON_VALUE)
+	public NotificationJournalResponse readJournal(
+	        @RequestParam(value = "offset", defaultValue = "0") long offset,
+	        @RequestParam(value = "limit", defaultValue = "100") int limit) throws IOException {
+
+	    if (offset < 0 || limit < 1 || limit > MAX_JOURNAL_LIMIT) {
+	        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset must not be negative and limit between 1 and " + MAX_JOURNAL_LIMIT);
+	    }
+	    return dispatcher.replay(offset, limit);
+	}
+
+	@Operation(summary = "notification-service latency",
+	        description = "Latency percentiles of /create and /create/bulk per channel, country and outcome over the recent window, the slowest p99 first.",
+	        tags = { "notification-service" })
+	@GetMapping(value = "/latency", produces = MediaType.APPLICATION_JSON_VALUE)
+	public List<NotificationLatencyResponse> latency() {
+	    return metrics.latencies();
+	}
 
-	    NotificationResponse response = new NotificationResponse();
-	    response.setError_code("0"); // Example: success
-	    response.setError_text("Success");
-	    response.setNotifyId(request.getIntValue());
-	    
-	    return ResponseEntity.ok(response);
+	private static NotificationEnvelope envelope(String channelId, String transactionDateTime, String transactionTimeZone,
+	        String countryOfOrigin, String transactionIdentifier) {
+	    NotificationEnvelope notification = new NotificationEnvelope();
+	    notification.setChannelId(channelId);
+	    notification.setTransactionDateTime(transactionDateTime);
+	    notification.setTransactionTimeZone(transactionTimeZone);
+	    notification.setCountryOfOrigin(countryOfOrigin);
+	    notification.setTransactionId(transactionIdentifier);
+	    return notification;
 	}
 }
@@ -0,0 +1,81 @@
+package com.ama.app.controller;
+
+import static com.ama.app.constants.ApplicationConstants.HEADER_CHANNEL_ID;
+import static com.ama.app.constants.ApplicationConstants.HEADER_COUNTRY_OF_ORIGIN;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.ama.app.service.NotificationMetrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Times the notification endpoints from the first handler call to the end of the response, including
+ * the asynchronous part of a streamed bulk response, and records the payload size and validation
+ * failures of {@code /create}. Bulk records are sized and validated one by one in the service.
+ */
+@Component
+public class NotificationMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START = NotificationMetricsInterceptor.class.getName() + ".start";
+    private static final String PREFIX = "/api/notification/";
+
+    @Autowired
+    private NotificationMetrics metrics;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // called again when an asynchronous response is dispatched back, keep the first start
+        if (request.getAttribute(START) == null) {
+            request.setAttribute(START, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Long start = (Long) request.getAttribute(START);
+        if (start == null) {
+            return;
+        }
+        String channel = request.getHeader(HEADER_CHANNEL_ID);
+        String country = request.getHeader(HEADER_COUNTRY_OF_ORIGIN);
+        String endpoint = endpoint(request);
+        // an exception that reached here was not handled and becomes a 500, a handled one is only exposed
+        int status = ex == null ? response.getStatus() : HttpStatus.INTERNAL_SERVER_ERROR.value();
+        Object handled = request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+        if (handled instanceof MethodArgumentNotValidException invalid) {
+            for (FieldError error : invalid.getFieldErrors()) {
+                metrics.recordValidationFailure(channel, country, error.getField());
+            }
+        }
+        if ("create".equals(endpoint) && request.getContentLengthLong() >= 0) {
+            metrics.recordPayload(channel, country, request.getContentLengthLong());
+        }
+        metrics.recordRequest(endpoint, channel, country, outcome(status),
+                System.nanoTime() - start);
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null && pattern.startsWith(PREFIX) ? pattern.substring(PREFIX.length()) : "unmapped";
+    }
+
+    private static String outcome(int status) {
+        if (status == HttpStatus.BAD_REQUEST.value()) {
+            return "invalid";
+        }
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            return "rejected";
+        }
+        return status < 400 ? "success" : "error";
+    }
+}
@@ -0,0 +1,26 @@
+package com.ama.app.doc;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the writers need from a spec, with refs resolved and schemas flattened: the info block,
+ * the operation sections in spec order and, for the schema appendix, the rows of each linked schema
+ * in order of first use. Rendering from it needs neither the parser nor the spec tree, so it is what
+ * {@link CompiledSpecStore} keeps between requests.
+ */
+public record CompiledSpec(
+        String title,
+        String description,
+        String version,
+        boolean hasPaths,
+        List<OperationSection> operations,
+        Map<String, List<String[]>> schemas) {
+
+    public CompiledSpec {
+        operations = Collections.unmodifiableList(operations);
+        schemas = Collections.unmodifiableMap(new LinkedHashMap<>(schemas));
+    }
+}
@@ -0,0 +1,138 @@
+package com.ama.app.doc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps {@link CompiledSpec}s on disk in Smile, a binary JSON encoding, so a spec that did not change
+ * is rendered again without running the YAML parser or resolving a single ref. An entry is keyed by
+ * the spec's content hash plus {@link DynamicSwaggerToWordService#RENDERER_VERSION}, so the same bytes
+ * share an entry whatever file they are read from, e.g. a request's snapshot of a spec; hashing the
+ * file is a plain read and far cheaper than parsing it. Only the newest
+ * {@code max-entries} models are kept. Off unless {@code documentation.compiled.enabled} is set, and
+ * only used for DOM DOCX renders, see {@link DynamicSwaggerToWordService#prepare}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "documentation.compiled.enabled", havingValue = "true")
+public class CompiledSpecStore {
+
+    private static final String SUFFIX = ".smile";
+
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final Path dir;
+    private final int maxEntries;
+
+    public CompiledSpecStore(
+            @Value("${documentation.compiled.dir:${java.io.tmpdir}/document-service-compiled}") String dir,
+            @Value("${documentation.compiled.max-entries:256}") int maxEntries) throws IOException {
+        this.dir = Files.createDirectories(Paths.get(dir));
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The stored model of {@code spec} for {@code variant}, or the one {@code compiler} builds, which
+     * is stored for next time. Failing to store it only costs the next request a parse.
+     */
+    public CompiledSpec get(Path spec, String variant, Compiler compiler) throws IOException {
+        Path file = dir.resolve(key(spec, variant) + SUFFIX);
+        if (Files.isRegularFile(file)) {
+            try {
+                CompiledSpec compiled = smileMapper.readValue(file.toFile(), CompiledSpec.class);
+                // the modification time orders entries for eviction
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                return compiled;
+            } catch (IOException e) {
+                log.warn("Discarding unreadable compiled spec {}", file.getFileName(), e);
+                Files.deleteIfExists(file);
+            }
+        }
+        CompiledSpec compiled = compiler.compile();
+        try {
+            Path tmp = Files.createTempFile(dir, "compile-", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    smileMapper.writeValue(out, compiled);
+                }
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            trim();
+        } catch (IOException e) {
+            log.warn("Could not store the compiled spec of {}", spec, e);
+        }
+        return compiled;
+    }
+
+    private String key(Path spec, String variant) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update((DynamicSwaggerToWordService.RENDERER_VERSION + '\n' + variant + '\n')
+                .getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = new DigestInputStream(Files.newInputStream(spec), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void trim() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(dir)) {
+            entries = files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).toList();
+        }
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        List<Path> oldestFirst = entries.stream()
+                .sorted(Comparator.comparing(CompiledSpecStore::lastModified))
+                .toList();
+        for (Path file : oldestFirst.subList(0, entries.size() - maxEntries)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            // deleted meanwhile, evict first
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Compiler {
+        CompiledSpec compile() throws IOException;
+    }
+}
@@ -0,0 +1,473 @@
+package com.ama.app.doc;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.ama.app.request.DocumentCacheStatsResponse;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Content-addressed cache of generated documents. Keys are the SHA-256 of the renderer version, the
+ * render variant and the spec bytes, so an unchanged spec is served without being parsed again.
+ * <p>
+ * Small documents are kept in a bounded in-memory LRU tier; every document is also written to a
+ * size-capped on-disk LRU tier that survives restarts.
+ * <p>
+ * Concurrent misses of one key are coalesced: only the caller that {@link #claim claims} the key
+ * renders it, the others wait for that render and are then served from the cache. Requests
+ * {@link #fill} the entry on a pool of {@code fill.threads}, so the render goes at its own pace
+ * rather than that of the client that missed first, and the claim is released when the render
+ * ends whatever its outcome.
+ * <p>
+ * A spec file is hashed while it is copied into a {@link Snapshot}, and the document is rendered
+ * from that copy, so the key always matches the bytes rendered even if the file changes meanwhile.
+ */
+@Slf4j
+@Component
+public class DocumentCache {
+
+    private static final String SUFFIX = ".bin";
+
+    private final long memoryMaxBytes;
+    private final long memoryMaxEntryBytes;
+    private final long diskMaxBytes;
+    private final Path diskDir;
+    private final Path snapshotDir;
+    private final ThreadPoolExecutor filler;
+
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+    /** Keys being rendered, completed once the entry is committed or dropped. */
+    private final Map<String, CompletableFuture<Void>> rendering = new ConcurrentHashMap<>();
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder memoryEvictions = new LongAdder();
+    private final LongAdder diskEvictions = new LongAdder();
+
+    public DocumentCache(
+            @Value("${documentation.cache.memory.max-bytes:67108864}") long memoryMaxBytes,
+            @Value("${documentation.cache.memory.max-entry-bytes:4194304}") long memoryMaxEntryBytes,
+            @Value("${documentation.cache.disk.max-bytes:1073741824}") long diskMaxBytes,
+            @Value("${documentation.cache.disk.dir:${java.io.tmpdir}/document-service-cache}") String diskDir,
+            @Value("${documentation.cache.fill.threads:4}") int fillThreads,
+            @Value("${documentation.cache.fill.queue-capacity:64}") int fillQueueCapacity)
+            throws IOException {
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.memoryMaxEntryBytes = memoryMaxEntryBytes;
+        this.diskMaxBytes = diskMaxBytes;
+        this.diskDir = Files.createDirectories(Paths.get(diskDir));
+        this.snapshotDir = Files.createDirectories(this.diskDir.resolve("snapshots"));
+        this.filler = new ThreadPoolExecutor(fillThreads, fillThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fillQueueCapacity), new CustomizableThreadFactory("doc-cache-fill-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        loadDiskIndex();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        filler.shutdownNow();
+    }
+
+    /** Whether entries are kept at all; with {@code disk.max-bytes} 0 every entry is evicted as it is committed. */
+    public boolean isEnabled() {
+        return diskMaxBytes > 0;
+    }
+
+    /**
+     * Copies the spec file and computes its key from the same read, so the spec is never held in memory. The copy keeps the file name as
+     * its suffix, so the format is still told by the extension; close the snapshot to delete it.
+     */
+    public Snapshot snapshot(Path spec, String variant) throws IOException {
+        MessageDigest digest = keyDigest(variant);
+        Path copy = Files.createTempFile(snapshotDir, "spec-", "-" + spec.getFileName());
+        try (InputStream in = new DigestInputStream(Files.newInputStream(spec), digest)) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(copy);
+            throw e;
+        }
+        return new Snapshot(key(digest), copy);
+    }
+
+    /**
+     * Digest for computing a key while the spec is consumed some other way, e.g. parsed from a request
+     * body. Feed it every spec byte, then pass it to {@link #key(MessageDigest)}.
+     */
+    public MessageDigest keyDigest(String variant) {
+        MessageDigest digest = sha256();
+        digest.update((DynamicSwaggerToWordService.RENDERER_VERSION + '\n' + variant + '\n')
+                .getBytes(StandardCharsets.UTF_8));
+        return digest;
+    }
+
+    public String key(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Opens the cached document for {@code key}, or returns {@code null} on a miss. A disk hit is
+     * opened immediately so a concurrent eviction cannot remove it from under the caller.
+     */
+    public InputStream open(String key) {
+        synchronized (memory) {
+            byte[] bytes = memory.get(key);
+            if (bytes != null) {
+                memoryHits.increment();
+                return new ByteArrayInputStream(bytes);
+            }
+        }
+        synchronized (disk) {
+            if (disk.get(key) != null) {
+                try {
+                    InputStream in = Files.newInputStream(entryPath(key));
+                    diskHits.increment();
+                    return in;
+                } catch (NoSuchFileException e) {
+                    diskBytes -= disk.remove(key);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Whether {@code key} is cached, without counting a hit or a miss. */
+    public boolean contains(String key) {
+        synchronized (memory) {
+            if (memory.containsKey(key)) {
+                return true;
+            }
+        }
+        synchronized (disk) {
+            return disk.containsKey(key);
+        }
+    }
+
+    /**
+     * Claims the render of {@code key} after a miss. Returns {@code null} when the caller now owns it
+     * and must {@link #create} the entry, or {@link #release} the claim if it cannot; otherwise the
+     * pending render of the current owner, after which the key is worth another {@link #open}.
+     */
+    public CompletableFuture<Void> claim(String key) {
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> pending = rendering.computeIfAbsent(key, k -> mine);
+        return pending == mine ? null : pending;
+    }
+
+    /** Gives up a claim without an entry; {@link Entry#commit()} and {@link Entry#abort()} release it themselves. */
+    public void release(String key) {
+        CompletableFuture<Void> pending = rendering.remove(key);
+        if (pending != null) {
+            pending.complete(null);
+        }
+    }
+
+    /** Releases {@code claim} unless it was released before and {@code key} claimed again since. */
+    private void release(String key, CompletableFuture<Void> claim) {
+        if (claim != null) {
+            rendering.remove(key, claim);
+            claim.complete(null);
+        }
+    }
+
+    /**
+     * Renders a claimed key into its entry on the fill pool. The returned future completes when the
+     * claim is released, after the entry was committed or the render failed, or right away if the pool
+     * is full; either way the key is worth another {@link #open}, and a miss means the caller has to
+     * render the document itself. {@code after} is closed once {@code document} is no longer needed.
+     */
+    public CompletableFuture<Void> fill(String key, PreparedDocument document, Closeable after) {
+        CompletableFuture<Void> claim = rendering.get(key);
+        try {
+            filler.execute(() -> {
+                try {
+                    Entry entry = create(key);
+                    try {
+                        document.writeTo(entry);
+                    } catch (IOException | RuntimeException e) {
+                        entry.abort();
+                        throw e;
+                    }
+                    entry.commit();
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Rendering cache entry {} failed", key, e);
+                } finally {
+                    closeQuietly(after);
+                    release(key, claim);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Fill pool full, {} is not cached", key);
+            closeQuietly(after);
+            release(key, claim);
+        }
+        return claim != null ? claim : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Starts a new entry for a claimed key. Bytes written to the returned stream are spooled to the
+     * disk tier and only become visible once {@link Entry#commit()} is called.
+     */
+    public Entry create(String key) throws IOException {
+        try {
+            return new Entry(key, Files.createTempFile(diskDir, key, ".tmp"));
+        } catch (IOException | RuntimeException e) {
+            release(key);
+            throw e;
+        }
+    }
+
+    public void evict(String key) {
+        synchronized (memory) {
+            byte[] bytes = memory.remove(key);
+            if (bytes != null) {
+                memoryBytes -= bytes.length;
+            }
+        }
+        synchronized (disk) {
+            Long size = disk.remove(key);
+            if (size != null) {
+                diskBytes -= size;
+                deleteQuietly(entryPath(key));
+            }
+        }
+    }
+
+    public DocumentCacheStatsResponse stats() {
+        DocumentCacheStatsResponse stats = new DocumentCacheStatsResponse();
+        stats.setMemoryHits(memoryHits.sum());
+        stats.setDiskHits(diskHits.sum());
+        stats.setMisses(misses.sum());
+        stats.setMemoryEvictions(memoryEvictions.sum());
+        stats.setDiskEvictions(diskEvictions.sum());
+        synchronized (memory) {
+            stats.setMemoryEntries(memory.size());
+            stats.setMemoryBytes(memoryBytes);
+        }
+        synchronized (disk) {
+            stats.setDiskEntries(disk.size());
+            stats.setDiskBytes(diskBytes);
+        }
+        return stats;
+    }
+
+    private void putMemory(String key, byte[] bytes) {
+        synchronized (memory) {
+            byte[] previous = memory.put(key, bytes);
+            memoryBytes += bytes.length - (previous == null ? 0 : previous.length);
+            Iterator<Map.Entry<String, byte[]>> eldest = memory.entrySet().iterator();
+            while (memoryBytes > memoryMaxBytes && eldest.hasNext()) {
+                Map.Entry<String, byte[]> entry = eldest.next();
+                memoryBytes -= entry.getValue().length;
+                eldest.remove();
+                memoryEvictions.increment();
+            }
+        }
+    }
+
+    private void putDisk(String key, Path tmp, long size) throws IOException {
+        synchronized (disk) {
+            Files.move(tmp, entryPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Long previous = disk.put(key, size);
+            diskBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+            while (diskBytes > diskMaxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                diskBytes -= entry.getValue();
+                eldest.remove();
+                deleteQuietly(entryPath(entry.getKey()));
+                diskEvictions.increment();
+            }
+        }
+    }
+
+    private void loadDiskIndex() throws IOException {
+        // left behind by requests that were running when the application stopped
+        try (Stream<Path> snapshots = Files.list(snapshotDir)) {
+            snapshots.forEach(DocumentCache::deleteQuietly);
+        }
+        try (Stream<Path> files = Files.list(diskDir)) {
+            List<Path> entries = files.filter(p -> {
+                        if (p.getFileName().toString().endsWith(".tmp")) {
+                            deleteQuietly(p); // left behind by an interrupted write
+                            return false;
+                        }
+                        return p.getFileName().toString().endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(p -> p.toFile().lastModified()))
+                    .toList();
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                long size = Files.size(entry);
+                disk.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                diskBytes += size;
+            }
+        }
+        log.info("Document cache at {} holds {} entries ({} bytes)", diskDir, disk.size(), diskBytes);
+    }
+
+    private Path entryPath(String key) {
+        return diskDir.resolve(key + SUFFIX);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete cache file {}", path, e);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.warn("Closing {} failed", closeable, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** A copy of a spec file and the key of its bytes; closing it deletes the copy. */
+    public record Snapshot(String key, Path file) implements Closeable {
+
+        @Override
+        public void close() {
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * A cache entry being written. Write failures are remembered rather than thrown so a broken
+     * cache never fails the response it is teed from; such an entry is discarded on commit.
+     */
+    public class Entry extends OutputStream {
+
+        private final String key;
+        private final CompletableFuture<Void> claim;
+        private final Path tmp;
+        private final OutputStream file;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private long size;
+        private boolean failed;
+
+        private Entry(String key, Path tmp) throws IOException {
+            this.key = key;
+            this.claim = rendering.get(key);
+            this.tmp = tmp;
+            // the document writers hand over many small chunks
+            this.file = new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024);
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (failed) {
+                return;
+            }
+            try {
+                file.write(b, off, len);
+            } catch (IOException e) {
+                log.warn("Writing cache entry {} failed", key, e);
+                failed = true;
+                return;
+            }
+            size += len;
+            if (buffer != null) {
+                if (size <= memoryMaxEntryBytes) {
+                    buffer.write(b, off, len);
+                } else {
+                    buffer = null;
+                }
+            }
+        }
+
+        public void commit() {
+            try {
+                file.close();
+                if (failed) {
+                    deleteQuietly(tmp);
+                    return;
+                }
+                putDisk(key, tmp, size);
+                if (buffer != null) {
+                    putMemory(key, buffer.toByteArray());
+                }
+            } catch (IOException e) {
+                log.warn("Committing cache entry {} failed", key, e);
+                deleteQuietly(tmp);
+            } finally {
+                release(key, claim);
+            }
+        }
+
+        public void abort() {
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.debug("Closing aborted cache entry {} failed", key, e);
+            }
+            deleteQuietly(tmp);
+            release(key, claim);
+        }
+
+        @Override
+        public void close() {
+            // lifecycle is driven by commit()/abort()
+        }
+    }
+}
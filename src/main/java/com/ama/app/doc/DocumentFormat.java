@@ -0,0 +1,31 @@
+package com.ama.app.doc;
+
+/**
+ * Output format of a generation.
+ * <ul>
+ * <li>{@link #DOCX} is the Word document, built by POI or streamed according to the {@link GenerationMode}.</li>
+ * <li>{@link #MARKDOWN} and {@link #HTML} are written straight to the output as text, with no
+ * document model, POI or zip involved; the mode does not apply to them.</li>
+ * </ul>
+ */
+public enum DocumentFormat {
+    DOCX("docx", "application/octet-stream"),
+    MARKDOWN("md", "text/markdown;charset=UTF-8"),
+    HTML("html", "text/html;charset=UTF-8");
+
+    private final String extension;
+    private final String contentType;
+
+    DocumentFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ama.app.doc;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Target of the documentation traversal. Implementations receive headings, paragraphs and tables
+ * in document order; {@link #close()} completes the output but never closes the underlying stream.
+ * There is one per {@link DocumentFormat}, and two for DOCX, one per {@link GenerationMode}.
+ */
+public interface DocumentWriter extends Closeable {
+
+    void addTitle(String text) throws IOException;
+
+    void addSubtitle(String text) throws IOException;
+
+    /** Subtitle that is the target of {@link #addLink} paragraphs naming {@code bookmark}. */
+    void addBookmarkedSubtitle(String text, String bookmark) throws IOException;
+
+    void addParagraph(String text) throws IOException;
+
+    void addBlankParagraph() throws IOException;
+
+    /** Paragraph of {@code label} followed by {@code text} as an internal link to {@code bookmark}. */
+    void addLink(String label, String text, String bookmark) throws IOException;
+
+    /** Two column table without a header row, one row per key/value pair. */
+    void addDetailsTable(String[][] rows) throws IOException;
+
+    /** Starts a table whose first row is the shaded, bold header. */
+    void startTable(String[] header) throws IOException;
+
+    void addTableRow(String[] values) throws IOException;
+
+    void endTable() throws IOException;
+}
@@ -0,0 +1,188 @@
+package com.ama.app.doc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.ama.app.request.DocumentationBatchManifestEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders many specs concurrently into one ZIP. Each document is spooled to a temp file by a worker
+ * and copied into the ZIP as soon as it completes, so at most {@code max-concurrency} documents are
+ * being built and none are held in memory. A failing spec is reported in {@code manifest.json}
+ * instead of failing the batch.
+ * <p>
+ * A batch only has {@code max-in-flight-per-batch} specs submitted at a time and submits the next as
+ * one completes, so concurrent batches take turns on the workers instead of queueing behind a large
+ * one. The queue is bounded by {@code queue-capacity}; when it is full the request thread renders the
+ * spec itself, which slows that batch down rather than growing the queue.
+ */
+@Slf4j
+@Service
+public class DocumentationBatchService {
+
+    public static final String MANIFEST = "manifest.json";
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ThreadPoolExecutor executor;
+    private final int maxInFlightPerBatch;
+
+    @Autowired
+    private DynamicSwaggerToWordService docGenerator;
+
+    public DocumentationBatchService(@Value("${documentation.batch.max-concurrency:4}") int maxConcurrency,
+            @Value("${documentation.batch.max-in-flight-per-batch:4}") int maxInFlightPerBatch,
+            @Value("${documentation.batch.queue-capacity:64}") int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("doc-batch-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.maxInFlightPerBatch = maxInFlightPerBatch;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void writeZip(List<String> yamlPaths, GenerationOptions options, OutputStream out) throws IOException {
+        ExecutorCompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+        AtomicBoolean abandoned = new AtomicBoolean();
+        List<Future<Result>> futures = new ArrayList<>();
+        while (futures.size() < Math.min(maxInFlightPerBatch, yamlPaths.size())) {
+            submit(completion, futures, yamlPaths, options, abandoned);
+        }
+
+        DocumentationBatchManifestEntry[] manifest = new DocumentationBatchManifestEntry[yamlPaths.size()];
+        Set<String> names = new HashSet<>();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            for (int i = 0; i < yamlPaths.size(); i++) {
+                Result result = completion.take().get();
+                if (futures.size() < yamlPaths.size()) {
+                    submit(completion, futures, yamlPaths, options, abandoned);
+                }
+                manifest[result.index] = result.entry;
+                if (result.file != null) {
+                    try {
+                        String name = uniqueName(names, result.entry.getYamlPath(), options.getFormat());
+                        result.entry.setEntry(name);
+                        zip.putNextEntry(new ZipEntry(name));
+                        Files.copy(result.file, zip);
+                        zip.closeEntry();
+                    } finally {
+                        Files.deleteIfExists(result.file);
+                    }
+                }
+            }
+            zip.putNextEntry(new ZipEntry(MANIFEST));
+            zip.write(jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest));
+            zip.closeEntry();
+            zip.finish();
+            zip.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            abandoned.set(true);
+            futures.forEach(future -> future.cancel(true));
+            for (Future<Result> future : futures) {
+                deleteAbandoned(future);
+            }
+        }
+    }
+
+    private void submit(ExecutorCompletionService<Result> completion, List<Future<Result>> futures,
+            List<String> yamlPaths, GenerationOptions options, AtomicBoolean abandoned) {
+        int index = futures.size();
+        futures.add(completion.submit(() -> render(index, yamlPaths.get(index), options, abandoned)));
+    }
+
+    private Result render(int index, String yamlPath, GenerationOptions options, AtomicBoolean abandoned) {
+        DocumentationBatchManifestEntry entry = new DocumentationBatchManifestEntry();
+        entry.setYamlPath(yamlPath);
+        long start = System.nanoTime();
+        Path file = null;
+        try {
+            file = Files.createTempFile("APIDocumentation_batch_", "." + options.getFormat().getExtension());
+            try (OutputStream fileOut = Files.newOutputStream(file)) {
+                docGenerator.generateWordDoc(yamlPath, options, fileOut);
+            }
+            entry.setStatus("OK");
+            entry.setBytes(Files.size(file));
+        } catch (Exception e) {
+            log.warn("Batch render of {} failed", yamlPath, e);
+            entry.setStatus("FAILED");
+            entry.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            deleteQuietly(file);
+            file = null;
+        }
+        entry.setMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (abandoned.get()) {
+            // the response is gone, nobody will copy and delete this file
+            deleteQuietly(file);
+            file = null;
+        }
+        return new Result(index, entry, file);
+    }
+
+    private static String uniqueName(Set<String> names, String yamlPath, DocumentFormat format) {
+        String base = Paths.get(yamlPath).getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        String name = base + "." + format.getExtension();
+        for (int i = 2; !names.add(name); i++) {
+            name = base + "-" + i + "." + format.getExtension();
+        }
+        return name;
+    }
+
+    private static void deleteAbandoned(Future<Result> future) {
+        if (future.isDone() && !future.isCancelled()) {
+            try {
+                deleteQuietly(future.get().file);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // render() never throws
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete batch file {}", file, e);
+        }
+    }
+
+    private record Result(int index, DocumentationBatchManifestEntry entry, Path file) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.ama.app.doc;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import lombok.Getter;
+
+/**
+ * State of one asynchronous generation. Fields are written by the worker and read by request threads.
+ */
+@Getter
+public class DocumentationJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final String yamlPath;
+    private final GenerationOptions options;
+    private final Instant submittedAt = Instant.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant finishedAt;
+    private volatile Path result;
+    private volatile String error;
+
+    DocumentationJob(String id, String yamlPath, GenerationOptions options) {
+        this.id = id;
+        this.yamlPath = yamlPath;
+        this.options = options;
+    }
+
+    void running() {
+        status = Status.RUNNING;
+    }
+
+    void completed(Path result) {
+        this.result = result;
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+}
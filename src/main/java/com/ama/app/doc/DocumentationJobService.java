@@ -0,0 +1,150 @@
+package com.ama.app.doc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs generations off the request threads. A fixed pool with a fixed capacity queue keeps the load
+ * predictable: once both are full {@link #submit} throws {@link RejectedExecutionException} and the
+ * caller is expected to retry later. Finished artifacts are kept on disk for a limited time.
+ */
+@Slf4j
+@Service
+public class DocumentationJobService {
+
+    private final Map<String, DocumentationJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final Path resultDir;
+    private final Duration ttl;
+
+    @Autowired
+    private DynamicSwaggerToWordService docGenerator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public DocumentationJobService(
+            @Value("${documentation.jobs.workers:2}") int workers,
+            @Value("${documentation.jobs.queue-capacity:16}") int queueCapacity,
+            @Value("${documentation.jobs.ttl:PT30M}") Duration ttl,
+            @Value("${documentation.jobs.dir:${java.io.tmpdir}/document-service-jobs}") String resultDir)
+            throws IOException {
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("doc-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.ttl = ttl;
+        this.resultDir = Files.createDirectories(Paths.get(resultDir));
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("documentation.jobs.queue.depth", this, DocumentationJobService::queueDepth)
+                .description("Jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("documentation.jobs.active", this, DocumentationJobService::activeCount)
+                .description("Jobs being generated")
+                .register(meterRegistry);
+    }
+
+    public DocumentationJob submit(String yamlPath, GenerationOptions options) {
+        DocumentationJob job = new DocumentationJob(UUID.randomUUID().toString(), yamlPath, options);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public DocumentationJob find(String id) {
+        return jobs.get(id);
+    }
+
+    public Instant expiresAt(DocumentationJob job) {
+        return job.getFinishedAt() == null ? null : job.getFinishedAt().plus(ttl);
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    @Scheduled(fixedDelayString = "${documentation.jobs.cleanup-interval:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        Iterator<DocumentationJob> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            DocumentationJob job = it.next();
+            Instant expiresAt = expiresAt(job);
+            if (expiresAt != null && expiresAt.isBefore(now)) {
+                it.remove();
+                deleteResult(job);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jobs.values().forEach(this::deleteResult);
+    }
+
+    private void run(DocumentationJob job) {
+        job.running();
+        Path result = resultDir.resolve(job.getId() + "." + job.getOptions().getFormat().getExtension());
+        try (OutputStream out = Files.newOutputStream(result)) {
+            docGenerator.generateWordDoc(job.getYamlPath(), job.getOptions(), out);
+        } catch (Exception e) {
+            log.warn("Documentation job {} for {} failed", job.getId(), job.getYamlPath(), e);
+            job.failed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            try {
+                Files.deleteIfExists(result);
+            } catch (IOException ex) {
+                log.warn("Could not delete partial result of job {}", job.getId(), ex);
+            }
+            return;
+        }
+        job.completed(result);
+    }
+
+    private void deleteResult(DocumentationJob job) {
+        if (job.getResult() == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(job.getResult());
+        } catch (IOException e) {
+            log.warn("Could not delete result of job {}", job.getId(), e);
+        }
+    }
+}
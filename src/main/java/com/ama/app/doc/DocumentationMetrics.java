@@ -0,0 +1,128 @@
+package com.ama.app.doc;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Micrometer meters of the generation pipeline, published through the actuator metrics endpoint.
+ * Meters are created once; recording is a few atomic updates per generation and per phase, so
+ * they stay on all the time.
+ * <ul>
+ * <li>{@code documentation.generation.phase{phase}}: parse, index, sections, write and serialize;</li>
+ * <li>{@code documentation.generation{format,mode,outcome}}: the whole generation; Markdown and HTML
+ * are always {@code streaming};</li>
+ * <li>{@code documentation.spec.size}, {@code documentation.spec.operations},
+ * {@code documentation.document.rows} and {@code documentation.document.size} per generation;</li>
+ * <li>{@code documentation.generations.active}: generations in progress.</li>
+ * </ul>
+ */
+@Component
+public class DocumentationMetrics {
+
+    public enum Phase {
+        /** Reading the spec file into a tree, or the scan passes of a streaming parse. */
+        PARSE,
+        /** Building the {@link SpecIndex} over the components. */
+        INDEX,
+        /** Resolving refs and flattening schemas into operation sections. */
+        SECTIONS,
+        /** Handing sections to the document writer. */
+        WRITE,
+        /** Finishing the document: {@code doc.write} for DOM mode, closing the zip or text stream when streaming. */
+        SERIALIZE
+    }
+
+    /**
+     * Used by services constructed outside of Spring. An empty composite registry discards everything;
+     * the global registry would not do, since Spring Boot adds its own registry to it.
+     */
+    static final DocumentationMetrics NOOP = new DocumentationMetrics(new CompositeMeterRegistry());
+
+    private final Map<Phase, Timer> phases = new EnumMap<>(Phase.class);
+    private final Map<DocumentFormat, Map<GenerationMode, Timer>> succeeded = new EnumMap<>(DocumentFormat.class);
+    private final Map<DocumentFormat, Map<GenerationMode, Timer>> failed = new EnumMap<>(DocumentFormat.class);
+    private final DistributionSummary specSize;
+    private final DistributionSummary operations;
+    private final DistributionSummary rows;
+    private final DistributionSummary documentSize;
+    private final AtomicInteger active = new AtomicInteger();
+
+    public DocumentationMetrics(MeterRegistry registry) {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, Timer.builder("documentation.generation.phase")
+                    .description("Time spent in one phase of a generation")
+                    .tag("phase", phase.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (DocumentFormat format : DocumentFormat.values()) {
+            succeeded.put(format, new EnumMap<>(GenerationMode.class));
+            failed.put(format, new EnumMap<>(GenerationMode.class));
+            for (GenerationMode mode : GenerationMode.values()) {
+                if (format == DocumentFormat.DOCX || mode == GenerationMode.STREAMING) {
+                    succeeded.get(format).put(mode, generationTimer(registry, format, mode, "success"));
+                    failed.get(format).put(mode, generationTimer(registry, format, mode, "error"));
+                }
+            }
+        }
+        specSize = summary(registry, "documentation.spec.size", "Size of the spec file read", "bytes");
+        operations = summary(registry, "documentation.spec.operations", "Operations rendered per document", "operations");
+        rows = summary(registry, "documentation.document.rows", "Table rows written per document", "rows");
+        documentSize = summary(registry, "documentation.document.size", "Size of the generated document", "bytes");
+        Gauge.builder("documentation.generations.active", active, AtomicInteger::get)
+                .description("Generations in progress")
+                .register(registry);
+    }
+
+    void recordPhase(Phase phase, long nanos) {
+        phases.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordSpecSize(long bytes) {
+        specSize.record(bytes);
+    }
+
+    void generationStarted() {
+        active.incrementAndGet();
+    }
+
+    void generationFinished(DocumentFormat format, GenerationMode mode, boolean success, long nanos,
+            long operationCount, long rowCount, long bytes) {
+        active.decrementAndGet();
+        GenerationMode writerMode = format == DocumentFormat.DOCX ? mode : GenerationMode.STREAMING;
+        (success ? succeeded : failed).get(format).get(writerMode).record(nanos, TimeUnit.NANOSECONDS);
+        if (success) {
+            operations.record(operationCount);
+            rows.record(rowCount);
+            documentSize.record(bytes);
+        }
+    }
+
+    private static Timer generationTimer(MeterRegistry registry, DocumentFormat format, GenerationMode mode, String outcome) {
+        return Timer.builder("documentation.generation")
+                .description("Whole generations from opened spec to finished document")
+                .tag("format", format.name().toLowerCase())
+                .tag("mode", mode.name().toLowerCase())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static DistributionSummary summary(MeterRegistry registry, String name, String description, String unit) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(unit)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
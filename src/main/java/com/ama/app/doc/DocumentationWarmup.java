@@ -0,0 +1,89 @@
+package com.ama.app.doc;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders the built-in {@code warmup/sample-openapi.yaml} a few times in every mode before the
+ * application takes traffic, so the first real request does not pay for loading the POI/XMLBeans
+ * type system and the {@code org.openxmlformats} classes or for running the YAML parser cold. The
+ * sample is parsed on every render, bypassing the {@link CompiledSpecStore}, so both parsers are
+ * warmed as often as the writers and nothing is left in the store.
+ * <p>
+ * Application runners finish before Spring Boot reports the application ready, so the readiness
+ * probe stays {@code REFUSING_TRAFFIC} until the warm-up is done. With {@code exit} the application
+ * stops right after it, which is how the {@code cds} build profile records the classes to archive.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "documentation.warmup.enabled", havingValue = "true")
+public class DocumentationWarmup implements ApplicationRunner {
+
+    static final String SAMPLE = "warmup/sample-openapi.yaml";
+
+    @Autowired
+    private DynamicSwaggerToWordService docGenerator;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Value("${documentation.warmup.iterations:3}")
+    private int iterations;
+
+    @Value("${documentation.warmup.exit:false}")
+    private boolean exit;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+        Path sample = Files.createTempFile("warmup-", ".yaml");
+        try {
+            try (InputStream in = new ClassPathResource(SAMPLE).getInputStream()) {
+                Files.copy(in, sample, StandardCopyOption.REPLACE_EXISTING);
+            }
+            for (int i = 0; i < iterations; i++) {
+                for (GenerationOptions options : variants()) {
+                    SpecSource spec = docGenerator.openSpec(sample.toString(), options);
+                    docGenerator.generateWordDoc(spec, options, OutputStream.nullOutputStream());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(sample);
+        }
+        log.info("Documentation warm-up rendered the sample {} times in {} ms",
+                iterations * variants().size(), (System.nanoTime() - start) / 1_000_000);
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /** The paths through the renderer a request can take: every writer, both parsers and the appendix. */
+    private static List<GenerationOptions> variants() {
+        GenerationOptions streamingParse = GenerationOptions.of(GenerationMode.DOM);
+        streamingParse.setStreamingParse(true);
+        GenerationOptions appendix = GenerationOptions.of(GenerationMode.STREAMING);
+        appendix.setSchemaAppendix(true);
+        GenerationOptions markdown = GenerationOptions.of(GenerationMode.STREAMING);
+        markdown.setFormat(DocumentFormat.MARKDOWN);
+        GenerationOptions html = GenerationOptions.of(GenerationMode.STREAMING);
+        html.setFormat(DocumentFormat.HTML);
+        return List.of(GenerationOptions.of(GenerationMode.DOM), GenerationOptions.of(GenerationMode.STREAMING),
+                streamingParse, appendix, markdown, html);
+    }
+}
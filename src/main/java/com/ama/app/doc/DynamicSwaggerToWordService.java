@@ -1,303 +1,577 @@
 package com.ama.app.doc;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
-import org.apache.poi.xwpf.usermodel.*;
-import org.openxmlformats.schemas.wordprocessingml.x2006.main.*;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.ama.app.doc.DocumentationMetrics.Phase;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class DynamicSwaggerToWordService {
 
+    /** Bump whenever the rendered output changes so cached documents and compiled specs are not reused. */
+    public static final String RENDERER_VERSION = "2";
+
+    private static final String[] HEADER_COLUMNS = {"Name", "Description", "Type", "Required"};
+    private static final String[] FIELD_COLUMNS = {"Field", "Description", "Type", "Required", "Constraints"};
+    private static final String[] CHANGE_COLUMNS = {"Operation", "Change"};
+    private static final String SCHEMAS_REF = "#/components/schemas/";
+    private static final int SNIFF_LIMIT = 1024;
+
     private final ObjectMapper jsonMapper = new ObjectMapper();
     private final YAMLMapper yamlMapper = new YAMLMapper();
+    private final ForkJoinPool renderPool;
+
+    @Autowired(required = false)
+    private OperationFragmentStore fragmentStore;
+
+    @Autowired(required = false)
+    private CompiledSpecStore compiledSpecs;
+
+    @Autowired(required = false)
+    private DocumentationMetrics metrics = DocumentationMetrics.NOOP;
+
+    public DynamicSwaggerToWordService(@Value("${documentation.render.parallelism:0}") int parallelism) {
+        this.renderPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
 
     public File generateWordDocFromYaml(String yamlPath) throws Exception {
-        // Determine if input is YAML or JSON
-        JsonNode root;
-        try (FileInputStream fis = new FileInputStream(yamlPath)) {
-            if (yamlPath.toLowerCase().endsWith(".yaml") || yamlPath.toLowerCase().endsWith(".yml")) {
-                root = yamlMapper.readTree(fis);
-            } else {
-                root = jsonMapper.readTree(fis);
-            }
+        return generateWordDocFromYaml(yamlPath, GenerationMode.DOM);
+    }
+
+    /**
+     * Renders the spec into a new temp file. The caller owns the file and is responsible for deleting it.
+     */
+    public File generateWordDocFromYaml(String yamlPath, GenerationMode mode) throws Exception {
+        JsonNode root = readSpec(yamlPath);
+
+        // Save file
+        File out = File.createTempFile("APIDocumentation_", ".docx");
+        try (FileOutputStream fos = new FileOutputStream(out)) {
+            generateWordDoc(root, GenerationOptions.of(mode), fos);
         }
+        return out;
+    }
 
-        XWPFDocument doc = new XWPFDocument();
+    public void generateWordDoc(String yamlPath, GenerationOptions options, OutputStream out) throws Exception {
+        prepare(yamlPath, options).writeTo(out);
+    }
 
-        // Basic Info Section
-        addTitle(doc, root.path("info").path("title").asText(""));
-        addParagraph(doc, "Description: " + root.path("info").path("description").asText(""));
-        addParagraph(doc, "Version: " + root.path("info").path("version").asText(""));
+    public void generateWordDoc(String yamlPath, GenerationOptions options, WritableByteChannel channel) throws Exception {
+        prepare(yamlPath, options).writeTo(Channels.newOutputStream(channel));
+    }
 
-        // Paths
-        if (root.has("paths")) {
-            addTitle(doc, "API Endpoints");
-            Iterator<Map.Entry<String, JsonNode>> paths = root.get("paths").fields();
-            while (paths.hasNext()) {
-                Map.Entry<String, JsonNode> entry = paths.next();
-                String path = entry.getKey();
-                JsonNode methods = entry.getValue();
-                Iterator<Map.Entry<String, JsonNode>> ops = methods.fields();
-                while (ops.hasNext()) {
-                    Map.Entry<String, JsonNode> opEntry = ops.next();
-                    String method = opEntry.getKey().toUpperCase();
-                    JsonNode op = opEntry.getValue();
-
-                    // API Basic Info Table
-                    addSubtitle(doc, "API Details");
-                    XWPFTable apiTable = doc.createTable(3, 2);
-                    setTableBorders(apiTable);
-                    setTableRow(apiTable.getRow(0), "API URL", path);
-                    setTableRow(apiTable.getRow(1), "HTTP Method", method);
-                    setTableRow(apiTable.getRow(2), "Content Type", "application/json");
-                    addBlankParagraph(doc);
-
-                    // Headers Table
-                    if (op.has("parameters")) {
-                        addSubtitle(doc, "Headers");
-                        XWPFTable headersTable = doc.createTable(1, 4);
-                        setTableBorders(headersTable);
-                        setTableHeader(headersTable.getRow(0), 
-                            new String[]{"Name", "Description", "Type", "Required"});
-
-                        for (JsonNode param : op.get("parameters")) {
-                            if ("header".equals(param.path("in").asText())) {
-                                addTableRow(headersTable, new String[]{
-                                    param.path("name").asText(""),
-                                    param.path("description").asText(""),
-                                    getTypeFromSchema(param.path("schema")),
-                                    param.path("required").asBoolean(false) ? "Yes" : "No"
-                                });
-                            }
-                        }
-                        addBlankParagraph(doc);
-                    }
+    /**
+     * Reads the spec at {@code yamlPath} and returns the document to write. With the
+     * {@link CompiledSpecStore} enabled, a DOM DOCX render takes the compiled model from it when the
+     * file did not change since it was stored. A compiled model holds every section at once, so the
+     * streaming writers and the streaming parse, which exist to avoid that, always parse, as do
+     * incremental renders, which fingerprint the raw operations.
+     */
+    public PreparedDocument prepare(String yamlPath, GenerationOptions options) throws IOException {
+        if (compiledSpecs == null || options.isIncremental() || options.isStreamingParse()
+                || options.getFormat() != DocumentFormat.DOCX || options.getMode() == GenerationMode.STREAMING) {
+            SpecSource spec = openSpec(yamlPath, options);
+            return out -> generateWordDoc(spec, yamlPath, options, out);
+        }
+        long start = System.nanoTime();
+        boolean[] compiledNow = new boolean[1];
+        CompiledSpec compiled = compiledSpecs.get(Paths.get(yamlPath), options.isSchemaAppendix() ? "appendix" : "plain",
+                () -> {
+                    compiledNow[0] = true;
+                    return compile(openSpec(yamlPath, options), options);
+                });
+        if (!compiledNow[0]) {
+            // loading the stored model replaces the parse
+            metrics.recordPhase(Phase.PARSE, System.nanoTime() - start);
+        }
+        return out -> generateWordDoc(compiled, options, out);
+    }
 
-                    // Detailed Request Body Table
-                    if (op.has("requestBody")) {
-                        addSubtitle(doc, "Request Parameters");
-                        JsonNode content = op.path("requestBody").path("content");
-                        if (content.has("application/json")) {
-                            JsonNode schema = content.path("application/json").path("schema");
-                            if (schema.has("$ref")) {
-                                schema = resolveRef(root, schema.get("$ref").asText());
-                            }
-                            if (schema != null && schema.has("properties")) {
-                                XWPFTable requestTable = doc.createTable(1, 5);
-                                setTableBorders(requestTable);
-                                setTableHeader(requestTable.getRow(0), 
-                                    new String[]{"Field", "Description", "Type", "Required", "Constraints"});
-
-                                addPropertiesToTable(requestTable, schema, "");
-                            }
-                        }
-                        addBlankParagraph(doc);
-                    }
+    public void generateWordDoc(JsonNode root, GenerationOptions options, OutputStream out) throws IOException {
+        generateWordDoc(new TreeSpecSource(root), options, out);
+    }
+
+    /**
+     * Writes the document for an opened spec to {@code out}. The stream is flushed but not closed.
+     */
+    public void generateWordDoc(SpecSource spec, GenerationOptions options, OutputStream out) throws IOException {
+        generateWordDoc(spec, null, options, out);
+    }
+
+    /**
+     * As {@link #generateWordDoc(SpecSource, GenerationOptions, OutputStream)}, with {@code specId} used
+     * as the spec identity for incremental rendering unless the options name one.
+     */
+    public void generateWordDoc(SpecSource spec, String specId, GenerationOptions options, OutputStream out) throws IOException {
+        String id = options.getSpecId() != null ? options.getSpecId() : specId;
+        write(options, out, (writer, context) -> render(spec, writer, options, id, context));
+    }
+
+    /** Writes the document of a compiled spec, see {@link #compile}. */
+    public void generateWordDoc(CompiledSpec spec, GenerationOptions options, OutputStream out) throws IOException {
+        write(options, out, (writer, context) -> render(spec, writer, context));
+    }
 
-                    // Detailed Response Tables
-                    if (op.has("responses")) {
-                        addSubtitle(doc, "Response Details");
-                        Iterator<Map.Entry<String, JsonNode>> respFields = op.path("responses").fields();
-                        while (respFields.hasNext()) {
-                            Map.Entry<String, JsonNode> respEntry = respFields.next();
-                            String code = respEntry.getKey();
-                            JsonNode resp = respEntry.getValue();
-                            
-                            addParagraph(doc, "Status Code: " + code + " - " + resp.path("description").asText(""));
-                            
-                            if (resp.has("content") && resp.path("content").has("application/json")) {
-                                JsonNode respSchema = resp.path("content").path("application/json").path("schema");
-                                if (respSchema.has("$ref")) {
-                                    respSchema = resolveRef(root, respSchema.get("$ref").asText());
-                                }
-                                if (respSchema != null && respSchema.has("properties")) {
-                                    XWPFTable responseTable = doc.createTable(1, 5);
-                                    setTableBorders(responseTable);
-                                    setTableHeader(responseTable.getRow(0), 
-                                        new String[]{"Field", "Description", "Type", "Required", "Constraints"});
-                                    
-                                    addPropertiesToTable(responseTable, respSchema, "");
-                                }
-                            }
-                            addBlankParagraph(doc);
-                        }
+    /**
+     * Flattens an opened spec into its {@link CompiledSpec}, building sections the same way a render
+     * does, so rendering the model produces the same document.
+     */
+    public CompiledSpec compile(SpecSource spec, GenerationOptions options) throws IOException {
+        RenderContext context = new RenderContext(options.isSchemaAppendix());
+        JsonNode info = spec.info();
+        List<OperationSection> operations = new ArrayList<>();
+        Map<String, List<String[]>> schemas = new LinkedHashMap<>();
+        if (spec.hasPaths()) {
+            long indexStart = System.nanoTime();
+            context.index = spec.index();
+            metrics.recordPhase(Phase.INDEX, System.nanoTime() - indexStart);
+            forEachSection(spec, context, options.isParallel(), section -> {
+                operations.add(section);
+                if (context.schemaAppendix) {
+                    for (String ref : linkedSchemas(section)) {
+                        schemas.computeIfAbsent(ref, r -> componentRows(context.index, r));
                     }
                 }
+            });
+            metrics.recordPhase(Phase.SECTIONS, context.sectionNanos.sum());
+        }
+        return new CompiledSpec(info.path("title").asText(""), info.path("description").asText(""),
+                info.path("version").asText(""), spec.hasPaths(), operations, schemas);
+    }
+
+    private void write(GenerationOptions options, OutputStream out, Renderer renderer) throws IOException {
+        RenderContext context = new RenderContext(options.isSchemaAppendix());
+        CountingOutputStream counted = new CountingOutputStream(out);
+        long start = System.nanoTime();
+        boolean success = false;
+        metrics.generationStarted();
+        try {
+            long serializeStart;
+            try (DocumentWriter writer = openWriter(options, counted)) {
+                renderer.render(writer, context);
+                serializeStart = System.nanoTime();
+            }
+            metrics.recordPhase(Phase.SERIALIZE, System.nanoTime() - serializeStart);
+            // a compiled spec replays stored sections; building them was timed when it was compiled
+            if (!context.compiled) {
+                metrics.recordPhase(Phase.SECTIONS, context.sectionNanos.sum());
             }
+            metrics.recordPhase(Phase.WRITE, context.writeNanos);
+            out.flush();
+            success = true;
+        } finally {
+            metrics.generationFinished(options.getFormat(), options.getMode(), success, System.nanoTime() - start,
+                    context.operations, context.rows, counted.getByteCount());
         }
+    }
 
-        // Save file
-        File out = File.createTempFile("APIDocumentation_", ".docx");
-        try (FileOutputStream fos = new FileOutputStream(out)) {
-            doc.write(fos);
+    public JsonNode readSpec(String yamlPath) throws IOException {
+        try (FileInputStream fis = new FileInputStream(yamlPath)) {
+            return mapperFor(yamlPath).readTree(fis);
         }
-        return out;
     }
 
-    private void addPropertiesToTable(XWPFTable table, JsonNode schema, String prefix) {
-        Iterator<Map.Entry<String, JsonNode>> props = schema.path("properties").fields();
-        while (props.hasNext()) {
-            Map.Entry<String, JsonNode> propEntry = props.next();
-            String propName = propEntry.getKey();
-            JsonNode prop = propEntry.getValue();
-            String fullName = prefix.isEmpty() ? propName : prefix + "." + propName;
+    /**
+     * Parses a spec from a stream without buffering it first. There is no file name to go by, so JSON
+     * is told apart from YAML by the first non-whitespace character. The stream is not closed.
+     */
+    public JsonNode readSpec(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(CloseShieldInputStream.wrap(in));
+        long start = System.nanoTime();
+        JsonNode root = (looksLikeJson(buffered) ? jsonMapper : yamlMapper).readTree(buffered);
+        metrics.recordPhase(Phase.PARSE, System.nanoTime() - start);
+        return root;
+    }
 
-            // Handle nested objects
-            if (prop.has("properties")) {
-                addPropertiesToTable(table, prop, fullName);
-                continue;
-            }
+    /**
+     * Reads the spec as a tree, or with {@link GenerationOptions#isStreamingParse()} prepares it for
+     * token streaming. Either way parse errors of the up-front work are thrown here.
+     */
+    public SpecSource openSpec(String yamlPath, GenerationOptions options) throws IOException {
+        File file = new File(yamlPath);
+        long start = System.nanoTime();
+        SpecSource spec;
+        if (options.isStreamingParse()) {
+            spec = StreamingSpecSource.open(mapperFor(yamlPath), file);
+        } else {
+            spec = new TreeSpecSource(readSpec(yamlPath));
+        }
+        metrics.recordPhase(Phase.PARSE, System.nanoTime() - start);
+        metrics.recordSpecSize(file.length());
+        return spec;
+    }
 
-            // Handle arrays
-            if ("array".equals(prop.path("type").asText()) && prop.has("items")) {
-                JsonNode items = prop.path("items");
-                if (items.has("$ref")) {
-                    items = resolveRef(schema, items.get("$ref").asText());
-                }
-                if (items != null && items.has("properties")) {
-                    addPropertiesToTable(table, items, fullName + "[]");
+    private static boolean looksLikeJson(BufferedInputStream in) throws IOException {
+        in.mark(SNIFF_LIMIT);
+        try {
+            for (int i = 0; i < SNIFF_LIMIT; i++) {
+                int b = in.read();
+                // skip whitespace and a UTF-8 byte order mark
+                if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == 0xEF || b == 0xBB || b == 0xBF) {
                     continue;
                 }
+                return b == '{' || b == '[';
             }
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
 
-            // Build constraints string
-            StringBuilder constraints = new StringBuilder();
-            addConstraint(constraints, "maxLength", prop);
-            addConstraint(constraints, "minLength", prop);
-            addConstraint(constraints, "pattern", prop);
-            addConstraint(constraints, "minimum", prop);
-            addConstraint(constraints, "maximum", prop);
-            addConstraint(constraints, "enum", prop);
-
-            // Add row to table
-            addTableRow(table, new String[]{
-                fullName,
-                prop.path("description").asText(""),
-                getTypeFromSchema(prop),
-                isRequired(schema, propName) ? "Yes" : "No",
-                constraints.toString()
-            });
+    // Determine if input is YAML or JSON
+    private ObjectMapper mapperFor(String yamlPath) {
+        if (yamlPath.toLowerCase().endsWith(".yaml") || yamlPath.toLowerCase().endsWith(".yml")) {
+            return yamlMapper;
         }
+        return jsonMapper;
     }
 
-    private void addConstraint(StringBuilder constraints, String constraintName, JsonNode prop) {
-        if (prop.has(constraintName)) {
-            if (constraints.length() > 0) {
-                constraints.append(", ");
+    private DocumentWriter openWriter(GenerationOptions options, OutputStream out) throws IOException {
+        return switch (options.getFormat()) {
+            case MARKDOWN -> new MarkdownDocumentWriter(out);
+            case HTML -> new HtmlDocumentWriter(out);
+            case DOCX -> options.getMode() == GenerationMode.STREAMING
+                    ? new StreamingDocxWriter(out)
+                    : new XwpfDocumentWriter(out);
+        };
+    }
+
+    private void render(SpecSource spec, DocumentWriter doc, GenerationOptions options, String specId, RenderContext context)
+            throws IOException {
+        JsonNode info = spec.info();
+        writeInfo(doc, info.path("title").asText(""), info.path("description").asText(""), info.path("version").asText(""));
+
+        // Paths
+        if (spec.hasPaths()) {
+            doc.addTitle("API Endpoints");
+            long indexStart = System.nanoTime();
+            context.index = spec.index();
+            metrics.recordPhase(Phase.INDEX, System.nanoTime() - indexStart);
+            // sections built with and without the appendix differ, so they are stored apart
+            String storeKey = options.isSchemaAppendix() ? specId + "#appendix" : specId;
+            if (options.isIncremental() && specId != null && fragmentStore != null) {
+                context.incremental = new IncrementalRender(jsonMapper, context.index, fragmentStore.get(storeKey));
             }
-            constraints.append(constraintName).append(": ");
-            if (prop.get(constraintName).isArray()) {
-                constraints.append(prop.get(constraintName).toString());
-            } else {
-                constraints.append(prop.get(constraintName).asText());
+            forEachSection(spec, context, options.isParallel(), section -> writeOperation(doc, section, context));
+            if (context.schemaAppendix) {
+                writeSchemaAppendix(doc, context, ref -> componentRows(context.index, ref));
+            }
+            if (context.incremental != null) {
+                fragmentStore.put(storeKey, context.incremental.fragments());
+                if (options.isChangeSummary()) {
+                    writeChangeSummary(doc, context);
+                }
             }
         }
     }
 
-    private JsonNode resolveRef(JsonNode root, String ref) {
-        String[] parts = ref.split("/");
-        JsonNode node = root;
-        for (String part : parts) {
-            if (!part.equals("#")) {
-                node = node.path(part);
+    private void render(CompiledSpec spec, DocumentWriter doc, RenderContext context) throws IOException {
+        context.compiled = true;
+        writeInfo(doc, spec.title(), spec.description(), spec.version());
+        if (spec.hasPaths()) {
+            doc.addTitle("API Endpoints");
+            for (OperationSection section : spec.operations()) {
+                writeOperation(doc, section, context);
+            }
+            if (context.schemaAppendix) {
+                writeSchemaAppendix(doc, context, spec.schemas()::get);
             }
         }
-        return node;
     }
 
-    private String getTypeFromSchema(JsonNode schema) {
-        if (schema == null) return "Object";
-        if (schema.has("type")) return schema.path("type").asText();
-        if (schema.has("$ref")) return "Object";
-        return "Object";
+    private static void writeInfo(DocumentWriter doc, String title, String description, String version) throws IOException {
+        doc.addTitle(title);
+        doc.addParagraph("Description: " + description);
+        doc.addParagraph("Version: " + version);
+    }
+
+    /**
+     * Hands every section to {@code consumer} in spec order. In parallel they are built on the render
+     * pool and handed over as they complete, so the result is identical to the sequential path; the
+     * consumer itself only runs on this thread.
+     */
+    private void forEachSection(SpecSource spec, RenderContext context, boolean parallel, SectionConsumer consumer)
+            throws IOException {
+        if (!parallel) {
+            spec.forEachOperation((path, method, op) -> consumer.accept(section(context, path, method, op)));
+            return;
+        }
+        // a bounded window keeps the pool busy without holding every section of a large spec at once;
+        // sections are handed on and released in spec order
+        int window = renderPool.getParallelism() * 2;
+        Deque<ForkJoinTask<OperationSection>> sections = new ArrayDeque<>(window);
+        try {
+            spec.forEachOperation((path, method, op) -> {
+                if (sections.size() == window) {
+                    consumer.accept(sections.poll().join());
+                }
+                sections.add(renderPool.submit(() -> section(context, path, method, op)));
+            });
+            while (!sections.isEmpty()) {
+                consumer.accept(sections.poll().join());
+            }
+        } finally {
+            sections.forEach(section -> section.cancel(false));
+        }
     }
 
-    private boolean isRequired(JsonNode schema, String propName) {
-        if (!schema.has("required")) return false;
-        for (JsonNode req : schema.path("required")) {
-            if (req.asText().equals(propName)) return true;
+    /** Schema refs a section links to instead of rendering them, in document order. */
+    private static List<String> linkedSchemas(OperationSection section) {
+        List<String> refs = new ArrayList<>();
+        if (section.getRequestSchema() != null) {
+            refs.add(section.getRequestSchema());
         }
-        return false;
-    }
-
-    // Helper methods for table formatting
-    private void setTableBorders(XWPFTable table) {
-        table.setCellMargins(100, 100, 100, 100);
-        CTTblPr tblPr = table.getCTTbl().getTblPr();
-        CTTblBorders borders = tblPr.addNewTblBorders();
-        borders.addNewBottom().setVal(STBorder.SINGLE);
-        borders.addNewLeft().setVal(STBorder.SINGLE);
-        borders.addNewRight().setVal(STBorder.SINGLE);
-        borders.addNewTop().setVal(STBorder.SINGLE);
-        borders.addNewInsideH().setVal(STBorder.SINGLE);
-        borders.addNewInsideV().setVal(STBorder.SINGLE);
-    }
-
-    private void setTableHeader(XWPFTableRow row, String[] values) {
-        for (int i = 0; i < values.length; i++) {
-            XWPFTableCell cell = row.getCell(i);
-            if (cell == null) cell = row.addNewTableCell();
-            cell.setText(values[i]);
-            cell.setColor("D3D3D3"); // Light gray background
-            for (XWPFParagraph p : cell.getParagraphs()) {
-                for (XWPFRun r : p.getRuns()) {
-                    r.setBold(true);
+        if (section.getResponses() != null) {
+            for (OperationSection.Response response : section.getResponses()) {
+                if (response.getSchema() != null) {
+                    refs.add(response.getSchema());
                 }
             }
         }
+        return refs;
     }
 
-    private void setTableRow(XWPFTableRow row, String key, String value) {
-        row.getCell(0).setText(key);
-        row.getCell(1).setText(value);
+    private List<String[]> componentRows(SpecIndex index, String ref) {
+        return index.rows(jsonMapper.createObjectNode().put("$ref", ref));
     }
 
-    private void addTableRow(XWPFTable table, String[] values) {
-        XWPFTableRow row = table.createRow();
-        for (int i = 0; i < values.length; i++) {
-            row.getCell(i).setText(values[i]);
+    private OperationSection section(RenderContext context, String path, String method, JsonNode op) {
+        long start = System.nanoTime();
+        IncrementalRender.SectionBuilder builder =
+                (index, p, m, o) -> buildOperation(index, p, m, o, context.schemaAppendix);
+        OperationSection section = context.incremental == null
+                ? builder.build(context.index, path, method, op)
+                : context.incremental.section(path, method, op, builder);
+        context.sectionNanos.add(System.nanoTime() - start);
+        return section;
+    }
+
+    private OperationSection buildOperation(SpecIndex index, String path, String method, JsonNode op, boolean schemaAppendix) {
+        OperationSection section = new OperationSection();
+        section.setPath(path);
+        section.setMethod(method);
+
+        // Headers Table
+        if (op.has("parameters")) {
+            List<String[]> headers = new ArrayList<>();
+            for (JsonNode param : op.get("parameters")) {
+                if ("header".equals(param.path("in").asText())) {
+                    headers.add(new String[]{
+                        param.path("name").asText(""),
+                        param.path("description").asText(""),
+                        SpecIndex.typeOf(param.path("schema")),
+                        param.path("required").asBoolean(false) ? "Yes" : "No"
+                    });
+                }
+            }
+            section.setHeaders(headers);
+        }
+
+        // Detailed Request Body Table
+        if (op.has("requestBody")) {
+            JsonNode content = op.path("requestBody").path("content");
+            section.setRequestBody(true);
+            section.setRequestSchema(schemaAppendix ? componentSchema(index, content) : null);
+            if (section.getRequestSchema() == null) {
+                section.setRequestRows(schemaRows(index, content));
+            }
         }
+
+        // Detailed Response Tables
+        if (op.has("responses")) {
+            List<OperationSection.Response> responses = new ArrayList<>();
+            Iterator<Map.Entry<String, JsonNode>> respFields = op.path("responses").fields();
+            while (respFields.hasNext()) {
+                Map.Entry<String, JsonNode> respEntry = respFields.next();
+                JsonNode resp = respEntry.getValue();
+                OperationSection.Response response = new OperationSection.Response();
+                response.setCode(respEntry.getKey());
+                response.setDescription(resp.path("description").asText(""));
+                response.setSchema(schemaAppendix ? componentSchema(index, resp.path("content")) : null);
+                if (response.getSchema() == null) {
+                    response.setRows(schemaRows(index, resp.path("content")));
+                }
+                responses.add(response);
+            }
+            section.setResponses(responses);
+        }
+        return section;
     }
 
-    // Helper methods for document formatting
-    private void addTitle(XWPFDocument doc, String text) {
-        XWPFParagraph p = doc.createParagraph();
-        p.setStyle("Heading1");
-        XWPFRun run = p.createRun();
-        run.setText(text);
-        run.setBold(true);
-        run.setFontSize(18);
-        run.setFontFamily("Arial");
+    /** Field rows of the JSON schema in {@code content}, or {@code null} when there is no object schema. */
+    private List<String[]> schemaRows(SpecIndex index, JsonNode content) {
+        if (!content.has("application/json")) {
+            return null;
+        }
+        return index.rows(content.path("application/json").path("schema"));
     }
 
-    private void addSubtitle(XWPFDocument doc, String text) {
-        XWPFParagraph p = doc.createParagraph();
-        p.setStyle("Heading2");
-        XWPFRun run = p.createRun();
-        run.setText(text);
-        run.setBold(true);
-        run.setFontSize(14);
-        run.setFontFamily("Arial");
+    /**
+     * The {@code #/components/schemas/...} ref the JSON schema in {@code content} consists of, or {@code null}
+     * when it is inline or has no properties and is therefore rendered in place.
+     */
+    private String componentSchema(SpecIndex index, JsonNode content) {
+        String ref = content.path("application/json").path("schema").path("$ref").asText("");
+        if (!ref.startsWith(SCHEMAS_REF) || !index.resolve(ref).has("properties")) {
+            return null;
+        }
+        return ref;
     }
 
-    private void addParagraph(XWPFDocument doc, String text) {
-        XWPFParagraph p = doc.createParagraph();
-        XWPFRun run = p.createRun();
-        run.setText(text);
-        run.setFontSize(11);
-        run.setFontFamily("Arial");
+    private void writeOperation(DocumentWriter doc, OperationSection section, RenderContext context) throws IOException {
+        long start = System.nanoTime();
+        context.operations++;
+        if (context.incremental != null) {
+            context.incremental.written(section);
+        }
+        // API Basic Info Table
+        doc.addSubtitle("API Details");
+        doc.addDetailsTable(new String[][]{
+            {"API URL", section.getPath()},
+            {"HTTP Method", section.getMethod()},
+            {"Content Type", "application/json"}
+        });
+        doc.addBlankParagraph();
+
+        if (section.getHeaders() != null) {
+            doc.addSubtitle("Headers");
+            writeTable(doc, context, HEADER_COLUMNS, section.getHeaders());
+            doc.addBlankParagraph();
+        }
+
+        if (section.isRequestBody()) {
+            doc.addSubtitle("Request Parameters");
+            if (section.getRequestSchema() != null) {
+                writeSchemaLink(doc, section.getRequestSchema(), context);
+            } else if (section.getRequestRows() != null) {
+                writeTable(doc, context, FIELD_COLUMNS, section.getRequestRows());
+            }
+            doc.addBlankParagraph();
+        }
+
+        if (section.getResponses() != null) {
+            doc.addSubtitle("Response Details");
+            for (OperationSection.Response response : section.getResponses()) {
+                doc.addParagraph("Status Code: " + response.getCode() + " - " + response.getDescription());
+                if (response.getSchema() != null) {
+                    writeSchemaLink(doc, response.getSchema(), context);
+                } else if (response.getRows() != null) {
+                    writeTable(doc, context, FIELD_COLUMNS, response.getRows());
+                }
+                doc.addBlankParagraph();
+            }
+        }
+        context.writeNanos += System.nanoTime() - start;
+    }
+
+    private void writeSchemaLink(DocumentWriter doc, String ref, RenderContext context) throws IOException {
+        String bookmark = context.bookmarks.computeIfAbsent(ref, r -> "schema_" + (context.bookmarks.size() + 1));
+        doc.addLink("Schema: ", schemaName(ref), bookmark);
+    }
+
+    /** Every linked schema once, in order of first use, flattened the same way as inline tables. */
+    private void writeSchemaAppendix(DocumentWriter doc, RenderContext context, Function<String, List<String[]>> rows)
+            throws IOException {
+        if (context.bookmarks.isEmpty()) {
+            return;
+        }
+        doc.addTitle("Schema Appendix");
+        for (Map.Entry<String, String> schema : context.bookmarks.entrySet()) {
+            doc.addBookmarkedSubtitle(schemaName(schema.getKey()), schema.getValue());
+            writeTable(doc, context, FIELD_COLUMNS, rows.apply(schema.getKey()));
+            doc.addBlankParagraph();
+        }
     }
 
-    private void addBlankParagraph(XWPFDocument doc) {
-        doc.createParagraph();
+    private static String schemaName(String ref) {
+        return ref.substring(SCHEMAS_REF.length()).replace("~1", "/").replace("~0", "~");
+    }
+
+    private void writeChangeSummary(DocumentWriter doc, RenderContext context) throws IOException {
+        IncrementalRender incremental = context.incremental;
+        doc.addTitle("Change Summary");
+        doc.addParagraph("Added: " + incremental.count(IncrementalRender.Change.ADDED)
+                + ", Changed: " + incremental.count(IncrementalRender.Change.CHANGED)
+                + ", Unchanged: " + incremental.count(IncrementalRender.Change.UNCHANGED));
+        List<String[]> rows = incremental.changeRows();
+        if (!rows.isEmpty()) {
+            writeTable(doc, context, CHANGE_COLUMNS, rows);
+        }
+    }
+
+    private void writeTable(DocumentWriter doc, RenderContext context, String[] header, List<String[]> rows) throws IOException {
+        context.rows += rows.size();
+        doc.startTable(header);
+        for (String[] row : rows) {
+            doc.addTableRow(row);
+        }
+        doc.endTable();
+    }
+
+    @FunctionalInterface
+    private interface Renderer {
+        void render(DocumentWriter writer, RenderContext context) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface SectionConsumer {
+        void accept(OperationSection section) throws IOException;
+    }
+
+    /**
+     * State of one render shared between the section builders and the writing thread. Everything but
+     * {@link #sectionNanos} is only touched by the writing thread.
+     */
+    private static final class RenderContext {
+        private final boolean schemaAppendix;
+        private SpecIndex index;
+        private IncrementalRender incremental;
+        /** Linked schema refs to their bookmark names. */
+        private final Map<String, String> bookmarks = new LinkedHashMap<>();
+        private final LongAdder sectionNanos = new LongAdder();
+        private long writeNanos;
+        private boolean compiled;
+        private long operations;
+        private long rows;
+
+        private RenderContext(boolean schemaAppendix) {
+            this.schemaAppendix = schemaAppendix;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package com.ama.app.doc;
+
+/**
+ * How the DOCX output is produced.
+ * <ul>
+ * <li>{@link #DOM} builds the whole document with POI before writing it.</li>
+ * <li>{@link #STREAMING} writes {@code word/document.xml} to the zip as each operation is visited,
+ * so heap usage stays flat regardless of the spec size.</li>
+ * </ul>
+ */
+public enum GenerationMode {
+    DOM,
+    STREAMING
+}
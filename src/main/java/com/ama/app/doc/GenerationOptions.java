@@ -0,0 +1,58 @@
+package com.ama.app.doc;
+
+import lombok.Data;
+
+/**
+ * Per request generation settings; bound from the query parameters of the generate endpoints.
+ */
+@Data
+public class GenerationOptions {
+
+    private DocumentFormat format = DocumentFormat.DOCX;
+    /** How a DOCX is produced; Markdown and HTML are always streamed. */
+    private GenerationMode mode = GenerationMode.DOM;
+    /** Build operation sections on the render pool instead of the calling thread. Output is identical. */
+    private boolean parallel;
+    /** Stream the spec file token by token instead of reading it into a tree first. Output is identical. */
+    private boolean streamingParse;
+    /**
+     * Render each referenced {@code components/schemas} entry once in an appendix and link to it from
+     * the operations instead of repeating its table. Inline schemas are still rendered in place.
+     */
+    private boolean schemaAppendix;
+    /**
+     * Reuse the sections of operations that did not change since the previous render of the same spec.
+     * Output is identical.
+     */
+    private boolean incremental;
+    /** With {@link #incremental}, append a section listing the operations added, changed and removed. */
+    private boolean changeSummary;
+    /** Identity of the spec across versions for {@link #incremental}; defaults to the spec path. */
+    private String specId;
+
+    public static GenerationOptions of(GenerationMode mode) {
+        GenerationOptions options = new GenerationOptions();
+        options.setMode(mode);
+        return options;
+    }
+
+    /** The part of the options that changes the produced bytes, used to key cached documents. */
+    public String cacheVariant() {
+        StringBuilder variant = new StringBuilder(format == DocumentFormat.DOCX ? mode.name() : format.name());
+        if (schemaAppendix) {
+            variant.append("+appendix");
+        }
+        if (changeSummary) {
+            variant.append("+changes");
+        }
+        return variant.toString();
+    }
+
+    /**
+     * Whether the output depends on the spec bytes alone. The change summary also depends on the
+     * previously rendered version, so such documents must not be cached.
+     */
+    public boolean isCacheable() {
+        return !(incremental && changeSummary);
+    }
+}
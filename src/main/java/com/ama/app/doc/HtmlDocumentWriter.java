@@ -0,0 +1,175 @@
+package com.ama.app.doc;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a standalone HTML page straight to the stream. The head is held back until the first
+ * element so that a leading title also becomes the page title; the inline style mirrors the look of
+ * the DOCX output.
+ */
+public class HtmlDocumentWriter implements DocumentWriter {
+
+    private static final String STYLE = "<style>"
+            + "body{font-family:Arial,sans-serif;font-size:11pt;max-width:60em;margin:2em auto;padding:0 1em}"
+            + "h1{font-size:18pt}h2{font-size:14pt}"
+            + "p,td,th{white-space:pre-wrap}"
+            + "table{border-collapse:collapse;margin:0.5em 0}"
+            + "td,th{border:1px solid #000;padding:5px;text-align:left;vertical-align:top}"
+            + "th{background:#D3D3D3}"
+            + "a{color:#0563C1}"
+            + "</style>";
+
+    private final Writer out;
+    private boolean started;
+
+    public HtmlDocumentWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    @Override
+    public void addTitle(String text) throws IOException {
+        start(text);
+        writeElement("h1", text);
+    }
+
+    @Override
+    public void addSubtitle(String text) throws IOException {
+        start(null);
+        writeElement("h2", text);
+    }
+
+    @Override
+    public void addBookmarkedSubtitle(String text, String bookmark) throws IOException {
+        start(null);
+        out.write("<h2 id=\"");
+        out.write(escape(bookmark));
+        out.write("\">");
+        out.write(escape(text));
+        out.write("</h2>\n");
+    }
+
+    @Override
+    public void addParagraph(String text) throws IOException {
+        start(null);
+        writeElement("p", text);
+    }
+
+    @Override
+    public void addBlankParagraph() throws IOException {
+        start(null);
+        out.write("<br>\n");
+    }
+
+    @Override
+    public void addLink(String label, String text, String bookmark) throws IOException {
+        start(null);
+        out.write("<p>");
+        out.write(escape(label));
+        out.write("<a href=\"#");
+        out.write(escape(bookmark));
+        out.write("\">");
+        out.write(escape(text));
+        out.write("</a></p>\n");
+    }
+
+    @Override
+    public void addDetailsTable(String[][] rows) throws IOException {
+        start(null);
+        out.write("<table>\n");
+        for (String[] row : rows) {
+            writeRow("td", row);
+        }
+        out.write("</table>\n");
+    }
+
+    @Override
+    public void startTable(String[] header) throws IOException {
+        start(null);
+        out.write("<table>\n");
+        writeRow("th", header);
+    }
+
+    @Override
+    public void addTableRow(String[] values) throws IOException {
+        writeRow("td", values);
+    }
+
+    @Override
+    public void endTable() throws IOException {
+        out.write("</table>\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        start(null);
+        out.write("</body>\n</html>\n");
+        out.flush();
+    }
+
+    private void start(String title) throws IOException {
+        if (started) {
+            return;
+        }
+        started = true;
+        out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n");
+        if (title != null) {
+            writeElement("title", title);
+        }
+        out.write(STYLE);
+        out.write("\n</head>\n<body>\n");
+    }
+
+    private void writeRow(String cell, String[] values) throws IOException {
+        out.write("<tr>");
+        for (String value : values) {
+            out.write('<');
+            out.write(cell);
+            out.write('>');
+            out.write(escape(value));
+            out.write("</");
+            out.write(cell);
+            out.write('>');
+        }
+        out.write("</tr>\n");
+    }
+
+    private void writeElement(String element, String text) throws IOException {
+        out.write('<');
+        out.write(element);
+        out.write('>');
+        out.write(escape(text));
+        out.write("</");
+        out.write(element);
+        out.write(">\n");
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String entity = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> null;
+            };
+            if (entity != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (entity != null) {
+                    escaped.append(entity);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? text : escaped.toString();
+    }
+}
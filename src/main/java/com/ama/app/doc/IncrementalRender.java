@@ -0,0 +1,153 @@
+package com.ama.app.doc;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * One incremental render of a spec version. Each operation is fingerprinted from its own node plus
+ * every node in the transitive closure of its {@code $ref}s; when the fingerprint matches the previous
+ * version the stored section is spliced in instead of being built again.
+ * <p>
+ * {@link #section} may be called from the render pool; {@link #written} is called in document order.
+ */
+class IncrementalRender {
+
+    enum Change {
+        ADDED,
+        CHANGED,
+        UNCHANGED,
+        REMOVED
+    }
+
+    private final ObjectMapper jsonMapper;
+    private final SpecIndex index;
+    private final Map<String, OperationFragmentStore.Fragment> previous;
+    private final Map<String, OperationFragmentStore.Fragment> current = new ConcurrentHashMap<>();
+    private final Map<String, Change> changes = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> refDigests = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> refEdges = new ConcurrentHashMap<>();
+    private final List<String> order = new ArrayList<>();
+
+    IncrementalRender(ObjectMapper jsonMapper, SpecIndex index, Map<String, OperationFragmentStore.Fragment> previous) {
+        this.jsonMapper = jsonMapper;
+        this.index = index;
+        this.previous = previous;
+    }
+
+    OperationSection section(String path, String method, JsonNode op, SectionBuilder builder) {
+        String key = key(method, path);
+        String fingerprint = fingerprint(op);
+        OperationFragmentStore.Fragment before = previous.get(key);
+        OperationSection section;
+        if (before != null && before.fingerprint().equals(fingerprint)) {
+            section = before.section();
+            changes.put(key, Change.UNCHANGED);
+        } else {
+            section = builder.build(index, path, method, op);
+            changes.put(key, before == null ? Change.ADDED : Change.CHANGED);
+        }
+        current.put(key, new OperationFragmentStore.Fragment(fingerprint, section));
+        return section;
+    }
+
+    void written(OperationSection section) {
+        order.add(key(section.getMethod(), section.getPath()));
+    }
+
+    Map<String, OperationFragmentStore.Fragment> fragments() {
+        return new HashMap<>(current);
+    }
+
+    /** Operation/change pairs in document order, followed by removed operations; unchanged ones are left out. */
+    List<String[]> changeRows() {
+        List<String[]> rows = new ArrayList<>();
+        for (String key : order) {
+            Change change = changes.get(key);
+            if (change != Change.UNCHANGED) {
+                rows.add(new String[]{key, label(change)});
+            }
+        }
+        for (String key : new TreeSet<>(previous.keySet())) {
+            if (!current.containsKey(key)) {
+                rows.add(new String[]{key, label(Change.REMOVED)});
+            }
+        }
+        return rows;
+    }
+
+    long count(Change change) {
+        return changes.values().stream().filter(change::equals).count();
+    }
+
+    private String fingerprint(JsonNode op) {
+        MessageDigest digest = sha256();
+        digest.update(bytes(op));
+        Set<String> closure = new TreeSet<>();
+        Set<String> pending = new HashSet<>(refsIn(op));
+        while (!pending.isEmpty()) {
+            String ref = pending.iterator().next();
+            pending.remove(ref);
+            if (closure.add(ref)) {
+                pending.addAll(refEdges.computeIfAbsent(ref, r -> refsIn(index.resolve(r))));
+            }
+        }
+        for (String ref : closure) {
+            digest.update(ref.getBytes(StandardCharsets.UTF_8));
+            digest.update(refDigests.computeIfAbsent(ref, r -> sha256().digest(bytes(index.resolve(r)))));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Set<String> refsIn(JsonNode node) {
+        Set<String> refs = new HashSet<>();
+        for (JsonNode ref : node.findValues("$ref")) {
+            if (ref.isTextual()) {
+                refs.add(ref.asText());
+            }
+        }
+        return refs;
+    }
+
+    private byte[] bytes(JsonNode node) {
+        try {
+            return jsonMapper.writeValueAsBytes(node);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String key(String method, String path) {
+        return method + " " + path;
+    }
+
+    private static String label(Change change) {
+        return change.name().charAt(0) + change.name().substring(1).toLowerCase();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    interface SectionBuilder {
+        OperationSection build(SpecIndex index, String path, String method, JsonNode op);
+    }
+}
@@ -0,0 +1,142 @@
+package com.ama.app.doc;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes GitHub flavoured Markdown straight to the stream, one line at a time. Bookmarks become
+ * HTML anchors in front of the heading, which the common renderers keep, and details tables get an
+ * empty header row since Markdown tables cannot do without one.
+ */
+public class MarkdownDocumentWriter implements DocumentWriter {
+
+    private final Writer out;
+
+    public MarkdownDocumentWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    @Override
+    public void addTitle(String text) throws IOException {
+        out.write("# ");
+        out.write(escape(text));
+        out.write("\n\n");
+    }
+
+    @Override
+    public void addSubtitle(String text) throws IOException {
+        out.write("## ");
+        out.write(escape(text));
+        out.write("\n\n");
+    }
+
+    @Override
+    public void addBookmarkedSubtitle(String text, String bookmark) throws IOException {
+        out.write("## <a id=\"");
+        out.write(bookmark);
+        out.write("\"></a>");
+        out.write(escape(text));
+        out.write("\n\n");
+    }
+
+    @Override
+    public void addParagraph(String text) throws IOException {
+        out.write(escape(text));
+        out.write("\n\n");
+    }
+
+    @Override
+    public void addBlankParagraph() {
+        // paragraphs are already separated by a blank line, Markdown has no use for more
+    }
+
+    @Override
+    public void addLink(String label, String text, String bookmark) throws IOException {
+        out.write(escape(label));
+        out.write('[');
+        out.write(escape(text));
+        out.write("](#");
+        out.write(bookmark);
+        out.write(")\n\n");
+    }
+
+    @Override
+    public void addDetailsTable(String[][] rows) throws IOException {
+        int columns = rows.length == 0 ? 2 : rows[0].length;
+        writeRow(new String[columns]);
+        writeSeparator(columns);
+        for (String[] row : rows) {
+            writeRow(row);
+        }
+        out.write('\n');
+    }
+
+    @Override
+    public void startTable(String[] header) throws IOException {
+        writeRow(header);
+        writeSeparator(header.length);
+    }
+
+    @Override
+    public void addTableRow(String[] values) throws IOException {
+        writeRow(values);
+    }
+
+    @Override
+    public void endTable() throws IOException {
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    private void writeRow(String[] values) throws IOException {
+        out.write('|');
+        for (String value : values) {
+            out.write(' ');
+            if (value != null) {
+                out.write(escapeCell(value));
+            }
+            out.write(" |");
+        }
+        out.write('\n');
+    }
+
+    private void writeSeparator(int columns) throws IOException {
+        out.write('|');
+        for (int i = 0; i < columns; i++) {
+            out.write(" --- |");
+        }
+        out.write('\n');
+    }
+
+    /** Backslash-escapes the characters that would start emphasis, links, code or raw HTML. */
+    static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ("\\`*_[]<>#|".indexOf(c) >= 0) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+                }
+                escaped.append('\\');
+            }
+            if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped == null ? text : escaped.toString();
+    }
+
+    /** A cell must stay on one line, so line breaks become {@code <br>}. */
+    private static String escapeCell(String text) {
+        String escaped = escape(text);
+        return escaped.indexOf('\n') < 0 ? escaped : escaped.replace("\r\n", "<br>").replace("\n", "<br>");
+    }
+}
@@ -0,0 +1,37 @@
+package com.ama.app.doc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Operation sections of the last rendered version of each spec, keyed by operation and tagged with
+ * their fingerprint. Bounded to the most recently rendered specs.
+ */
+@Component
+public class OperationFragmentStore {
+
+    private final int maxSpecs;
+    private final LinkedHashMap<String, Map<String, Fragment>> specs = new LinkedHashMap<>(16, 0.75f, true);
+
+    public OperationFragmentStore(@Value("${documentation.incremental.max-specs:32}") int maxSpecs) {
+        this.maxSpecs = maxSpecs;
+    }
+
+    /** Fragments of the previous version of {@code specKey}; empty when it was never rendered. */
+    public synchronized Map<String, Fragment> get(String specKey) {
+        return specs.getOrDefault(specKey, Map.of());
+    }
+
+    public synchronized void put(String specKey, Map<String, Fragment> fragments) {
+        specs.put(specKey, fragments);
+        if (specs.size() > maxSpecs) {
+            specs.remove(specs.keySet().iterator().next());
+        }
+    }
+
+    public record Fragment(String fingerprint, OperationSection section) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.ama.app.doc;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * One path/method pair with its references resolved and its schemas flattened into table rows.
+ * Building a section is the CPU heavy part of generation and needs nothing but the parsed spec,
+ * so sections can be built independently and written later in spec order.
+ */
+@Data
+public class OperationSection {
+
+    private String path;
+    private String method;
+    /** Header parameter rows, or {@code null} when the operation declares no parameters. */
+    private List<String[]> headers;
+    private boolean requestBody;
+    /** Request field rows, or {@code null} when the body has no JSON object schema. */
+    private List<String[]> requestRows;
+    /** With the schema appendix, the {@code #/components/schemas/...} ref linked instead of {@link #requestRows}. */
+    private String requestSchema;
+    /** Responses in spec order, or {@code null} when the operation declares none. */
+    private List<Response> responses;
+
+    @Data
+    public static class Response {
+        private String code;
+        private String description;
+        /** Response field rows, or {@code null} when the response has no JSON object schema. */
+        private List<String[]> rows;
+        /** With the schema appendix, the {@code #/components/schemas/...} ref linked instead of {@link #rows}. */
+        private String schema;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ama.app.doc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A document whose spec has already been read, so parse errors surfaced before anything was written.
+ */
+@FunctionalInterface
+public interface PreparedDocument {
+
+    /** Writes the document to {@code out}; the stream is flushed but not closed. */
+    void writeTo(OutputStream out) throws IOException;
+}
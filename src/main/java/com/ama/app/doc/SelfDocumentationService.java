@@ -0,0 +1,111 @@
+package com.ama.app.doc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springdoc.api.AbstractOpenApiResource;
+import org.springdoc.webmvc.api.OpenApiWebMvcResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.core.util.Json31;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.SpecVersion;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Documents this application from the OpenAPI model springdoc builds in process, so no spec file is
+ * written, read or parsed. The model is converted straight into a tree and rendered once per set of
+ * options; the default document is generated in the background as soon as the application is ready.
+ */
+@Slf4j
+@Service
+public class SelfDocumentationService {
+
+    private final Map<String, CompletableFuture<byte[]>> documents = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("doc-self-"));
+
+    @Autowired
+    private DynamicSwaggerToWordService docGenerator;
+
+    @Autowired
+    private OpenApiWebMvcResource openApiResource;
+
+    @Value("${documentation.self.prewarm:true}")
+    private boolean prewarm;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (prewarm) {
+            document(new GenerationOptions());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The document for {@code options}, completed right away once it has been generated. A failed
+     * generation is not kept, so the next request tries again.
+     */
+    public CompletableFuture<byte[]> document(GenerationOptions options) {
+        String variant = options.cacheVariant();
+        return documents.computeIfAbsent(variant, v -> {
+            CompletableFuture<byte[]> document = CompletableFuture.supplyAsync(() -> render(options), executor);
+            document.whenComplete((bytes, e) -> {
+                if (e != null) {
+                    log.warn("Self documentation ({}) failed", variant, e);
+                    documents.remove(variant, document);
+                }
+            });
+            return document;
+        });
+    }
+
+    private byte[] render(GenerationOptions options) {
+        long start = System.nanoTime();
+        OpenAPI openApi = openApi();
+        ObjectMapper mapper = openApi.getSpecVersion() == SpecVersion.V31 ? Json31.mapper() : Json.mapper();
+        JsonNode root = mapper.valueToTree(openApi);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            docGenerator.generateWordDoc(root, options, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        log.info("Self documentation ({}) generated in {} ms", options.cacheVariant(), (System.nanoTime() - start) / 1_000_000);
+        return out.toByteArray();
+    }
+
+    /** springdoc only exposes the calculated model to subclasses of its resource. */
+    private OpenAPI openApi() {
+        try {
+            Method getOpenApi = AbstractOpenApiResource.class.getDeclaredMethod("getOpenApi", Locale.class);
+            getOpenApi.setAccessible(true);
+            return (OpenAPI) getOpenApi.invoke(openApiResource, Locale.getDefault());
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("springdoc could not build the OpenAPI model", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unsupported springdoc version", e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.ama.app.doc;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pre-renders the specs dropped into {@code documentation.watch.dir} into the {@link DocumentCache},
+ * so a later generate call for the same file and options is a cache hit.
+ * <p>
+ * Events of a file are debounced until it has been quiet for {@code debounce}, so a file that is
+ * still being copied is rendered once. Rendering runs on a small pool of minimum priority threads
+ * with a bounded queue; a file already waiting is not queued twice, and when the queue is full the
+ * file is skipped and simply rendered on demand. Deleting a file evicts its document.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("documentation.watch.dir")
+public class SpecDirectoryWatcher {
+
+    private final Path dir;
+    private final Duration debounce;
+    private final GenerationOptions options;
+    private final ThreadPoolExecutor renderer;
+    private final ScheduledExecutorService debouncer =
+            new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("doc-watch-debounce-"));
+    private final Map<Path, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+    private final Set<Path> queued = ConcurrentHashMap.newKeySet();
+    /** Cache key of the last document rendered for each file, evicted when the file changes or goes away. */
+    private final Map<Path, String> rendered = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread watchThread;
+
+    @Autowired
+    private DynamicSwaggerToWordService docGenerator;
+
+    @Autowired
+    private DocumentCache documentCache;
+
+    public SpecDirectoryWatcher(
+            @Value("${documentation.watch.dir}") String dir,
+            @Value("${documentation.watch.debounce:PT2S}") Duration debounce,
+            @Value("${documentation.watch.mode:DOM}") GenerationMode mode,
+            @Value("${documentation.watch.max-in-flight:2}") int maxInFlight,
+            @Value("${documentation.watch.queue-capacity:32}") int queueCapacity) {
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.debounce = debounce;
+        this.options = GenerationOptions.of(mode);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("doc-watch-");
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        this.renderer = new ThreadPoolExecutor(maxInFlight, maxInFlight, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(dir);
+        watchService = dir.getFileSystem().newWatchService();
+        dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        watchThread = new Thread(this::watch, "doc-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        // files that were there before the watch started
+        rescan();
+        log.info("Watching {} for specs", dir);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        watchService.close();
+        debouncer.shutdownNow();
+        renderer.shutdownNow();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        rescan();
+                        continue;
+                    }
+                    Path file = dir.resolve((Path) event.context());
+                    if (isSpec(file)) {
+                        changed(file);
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("Spec directory {} is no longer accessible, stopped watching", dir);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // shutting down
+        }
+    }
+
+    private void rescan() {
+        // rendered files are included so deletions lost in an overflow are noticed too
+        rendered.keySet().forEach(this::changed);
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(SpecDirectoryWatcher::isSpec).forEach(this::changed);
+        } catch (IOException e) {
+            log.warn("Could not list spec directory {}", dir, e);
+        }
+    }
+
+    /** (Re)starts the quiet period of {@code file}; the last event of a burst wins. */
+    private void changed(Path file) {
+        pending.compute(file, (f, previous) -> {
+            if (previous != null) {
+                previous.cancel(false);
+            }
+            return debouncer.schedule(() -> settled(f), debounce.toMillis(), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void settled(Path file) {
+        pending.remove(file);
+        if (!Files.isRegularFile(file)) {
+            String key = rendered.remove(file);
+            if (key != null) {
+                documentCache.evict(key);
+                log.info("Spec {} removed, evicted its document", file.getFileName());
+            }
+            return;
+        }
+        if (!queued.add(file)) {
+            return;
+        }
+        try {
+            renderer.execute(() -> {
+                queued.remove(file);
+                render(file);
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(file);
+            log.warn("Pre-render queue full, {} will be rendered on demand", file.getFileName());
+        }
+    }
+
+    private void render(Path file) {
+        // rendered from a copy, so a file rewritten meanwhile cannot end up under the key of its old bytes
+        try (DocumentCache.Snapshot snapshot = documentCache.snapshot(file, options.cacheVariant())) {
+            String key = snapshot.key();
+            String previous = rendered.put(file, key);
+            if (previous != null && !previous.equals(key)) {
+                documentCache.evict(previous);
+            }
+            // a request rendering the same spec right now fills the cache as well
+            if (documentCache.contains(key) || documentCache.claim(key) != null) {
+                return;
+            }
+            long start = System.nanoTime();
+            DocumentCache.Entry entry = documentCache.create(key);
+            try {
+                docGenerator.generateWordDoc(snapshot.file().toString(), options, entry);
+            } catch (Exception e) {
+                entry.abort();
+                throw e;
+            }
+            entry.commit();
+            log.info("Pre-rendered {} in {} ms", file.getFileName(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Pre-render of {} failed", file.getFileName(), e);
+        }
+    }
+
+    private static boolean isSpec(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".yaml") || name.endsWith(".yml") || name.endsWith(".json");
+    }
+}
@@ -0,0 +1,221 @@
+package com.ama.app.doc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+/**
+ * Lookup structure built once per spec. Every {@code #/components/...} target is indexed up front so
+ * resolving a {@code $ref} is a map lookup, and the flattened Field/Description/Type/Required/Constraints
+ * rows of each referenced schema are computed once and then copied wherever the schema is used.
+ * <p>
+ * Array items that point back to a schema already being flattened are not expanded again; the array
+ * is listed as a plain field instead, so recursive schemas terminate.
+ * <p>
+ * Instances are safe to share between the threads of a parallel render.
+ */
+public class SpecIndex {
+
+    private final JsonNode root;
+    private final Map<String, JsonNode> targets = new HashMap<>();
+    private final Map<String, Flattened> flattened = new ConcurrentHashMap<>();
+
+    private SpecIndex(JsonNode root) {
+        this.root = root;
+    }
+
+    public static SpecIndex of(JsonNode root) {
+        SpecIndex index = new SpecIndex(root);
+        Iterator<Map.Entry<String, JsonNode>> sections = root.path("components").fields();
+        while (sections.hasNext()) {
+            Map.Entry<String, JsonNode> section = sections.next();
+            Iterator<Map.Entry<String, JsonNode>> entries = section.getValue().fields();
+            while (entries.hasNext()) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                index.targets.put(componentRef(section.getKey(), entry.getKey()), entry.getValue());
+            }
+        }
+        return index;
+    }
+
+    /** Index over already materialized {@code #/components/...} targets, without a document root. */
+    public static SpecIndex of(Map<String, JsonNode> targets) {
+        SpecIndex index = new SpecIndex(null);
+        index.targets.putAll(targets);
+        return index;
+    }
+
+    /** The local ref pointing at {@code components/<section>/<name>}. */
+    public static String componentRef(String section, String name) {
+        return "#/components/" + escape(section) + "/" + escape(name);
+    }
+
+    /** The node {@code ref} points to, or a missing node when it cannot be resolved locally. */
+    public JsonNode resolve(String ref) {
+        JsonNode target = targets.get(ref);
+        if (target != null) {
+            return target;
+        }
+        if (root != null && ref.startsWith("#/")) {
+            return root.at(ref.substring(1));
+        }
+        return MissingNode.getInstance();
+    }
+
+    /**
+     * Rows for a request or response schema, resolving a top level {@code $ref}. Returns {@code null}
+     * when the schema has no properties. The returned list is shared and must not be modified.
+     */
+    public List<String[]> rows(JsonNode schema) {
+        if (schema.has("$ref")) {
+            String ref = schema.get("$ref").asText();
+            if (!resolve(ref).has("properties")) {
+                return null;
+            }
+            return flattenRef(ref, new ArrayDeque<>()).rows;
+        }
+        if (!schema.has("properties")) {
+            return null;
+        }
+        List<String[]> rows = new ArrayList<>();
+        addProperties(rows, schema, "", new ArrayDeque<>(), new HashSet<>());
+        return rows;
+    }
+
+    /**
+     * Flattened rows of the schema behind {@code ref}, with field names relative to it. An expansion
+     * only depends on its enclosing schemas when it reaches one of them, so it is reused and memoized
+     * only when none of the refs it reached are currently being flattened.
+     */
+    private Flattened flattenRef(String ref, Deque<String> stack) {
+        Flattened cached = flattened.get(ref);
+        if (cached != null && Collections.disjoint(cached.reached, stack)) {
+            return cached;
+        }
+        stack.push(ref);
+        List<String[]> rows = new ArrayList<>();
+        Set<String> reached = new HashSet<>();
+        addProperties(rows, resolve(ref), "", stack, reached);
+        stack.pop();
+
+        Flattened result = new Flattened(rows, reached);
+        if (Collections.disjoint(reached, stack)) {
+            flattened.putIfAbsent(ref, result);
+        }
+        return result;
+    }
+
+    private void addProperties(List<String[]> rows, JsonNode schema, String prefix, Deque<String> stack, Set<String> reached) {
+        Iterator<Map.Entry<String, JsonNode>> props = schema.path("properties").fields();
+        while (props.hasNext()) {
+            Map.Entry<String, JsonNode> propEntry = props.next();
+            String propName = propEntry.getKey();
+            JsonNode prop = propEntry.getValue();
+            String fullName = prefix.isEmpty() ? propName : prefix + "." + propName;
+
+            // Handle nested objects
+            if (prop.has("properties")) {
+                addProperties(rows, prop, fullName, stack, reached);
+                continue;
+            }
+
+            // Handle arrays
+            if ("array".equals(prop.path("type").asText()) && prop.has("items")) {
+                JsonNode items = prop.path("items");
+                if (items.has("$ref")) {
+                    String ref = items.get("$ref").asText();
+                    reached.add(ref);
+                    // a ref that is already being flattened is a cycle: list the array as a plain field
+                    if (!stack.contains(ref) && resolve(ref).has("properties")) {
+                        Flattened target = flattenRef(ref, stack);
+                        reached.addAll(target.reached);
+                        copyRows(rows, target.rows, fullName + "[]");
+                        continue;
+                    }
+                } else if (items.has("properties")) {
+                    addProperties(rows, items, fullName + "[]", stack, reached);
+                    continue;
+                }
+            }
+
+            // Build constraints string
+            StringBuilder constraints = new StringBuilder();
+            addConstraint(constraints, "maxLength", prop);
+            addConstraint(constraints, "minLength", prop);
+            addConstraint(constraints, "pattern", prop);
+            addConstraint(constraints, "minimum", prop);
+            addConstraint(constraints, "maximum", prop);
+            addConstraint(constraints, "enum", prop);
+
+            rows.add(new String[]{
+                fullName,
+                prop.path("description").asText(""),
+                typeOf(prop),
+                isRequired(schema, propName) ? "Yes" : "No",
+                constraints.toString()
+            });
+        }
+    }
+
+    private static void copyRows(List<String[]> rows, List<String[]> source, String prefix) {
+        for (String[] row : source) {
+            String[] copy = row.clone();
+            copy[0] = prefix + "." + row[0];
+            rows.add(copy);
+        }
+    }
+
+    private static void addConstraint(StringBuilder constraints, String constraintName, JsonNode prop) {
+        if (prop.has(constraintName)) {
+            if (constraints.length() > 0) {
+                constraints.append(", ");
+            }
+            constraints.append(constraintName).append(": ");
+            if (prop.get(constraintName).isArray()) {
+                constraints.append(prop.get(constraintName).toString());
+            } else {
+                constraints.append(prop.get(constraintName).asText());
+            }
+        }
+    }
+
+    static String typeOf(JsonNode schema) {
+        if (schema == null) return "Object";
+        if (schema.has("type")) return schema.path("type").asText();
+        return "Object";
+    }
+
+    private static boolean isRequired(JsonNode schema, String propName) {
+        if (!schema.has("required")) return false;
+        for (JsonNode req : schema.path("required")) {
+            if (req.asText().equals(propName)) return true;
+        }
+        return false;
+    }
+
+    private static String escape(String token) {
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+
+    /** Rows of a referenced schema plus every array item ref met while flattening it. */
+    private static final class Flattened {
+        private final List<String[]> rows;
+        private final Set<String> reached;
+
+        private Flattened(List<String[]> rows, Set<String> reached) {
+            this.rows = rows;
+            this.reached = reached;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.ama.app.doc;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The parts of a spec the renderer reads: the info block, a ref index and the operations in spec order.
+ */
+public interface SpecSource {
+
+    JsonNode info();
+
+    boolean hasPaths();
+
+    SpecIndex index();
+
+    /** Visits every path/method pair in document order; the method is upper-cased. */
+    void forEachOperation(OperationVisitor visitor) throws IOException;
+
+    @FunctionalInterface
+    interface OperationVisitor {
+        void visit(String path, String method, JsonNode op) throws IOException;
+    }
+}
@@ -0,0 +1,329 @@
+package com.ama.app.doc;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes a DOCX package without building a POI document. The fixed package parts are written up
+ * front and {@code word/document.xml} is then streamed element by element, so only the current
+ * row is ever held in memory. The markup mirrors what {@link XwpfDocumentWriter} produces.
+ */
+public class StreamingDocxWriter implements DocumentWriter {
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String XML_NS = "http://www.w3.org/XML/1998/namespace";
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private static final String CONTENT_TYPES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+            + "<Default ContentType=\"application/vnd.openxmlformats-package.relationships+xml\" Extension=\"rels\"/>"
+            + "<Default ContentType=\"application/xml\" Extension=\"xml\"/>"
+            + "<Override ContentType=\"application/vnd.openxmlformats-officedocument.extended-properties+xml\" PartName=\"/docProps/app.xml\"/>"
+            + "<Override ContentType=\"application/vnd.openxmlformats-package.core-properties+xml\" PartName=\"/docProps/core.xml\"/>"
+            + "<Override ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\" PartName=\"/word/document.xml\"/>"
+            + "<Override ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.settings+xml\" PartName=\"/word/settings.xml\"/>"
+            + "</Types>";
+
+    private static final String PACKAGE_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Target=\"word/document.xml\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\"/>"
+            + "<Relationship Id=\"rId2\" Target=\"docProps/app.xml\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/extended-properties\"/>"
+            + "<Relationship Id=\"rId3\" Target=\"docProps/core.xml\" Type=\"http://schemas.openxmlformats.org/package/2006/relationships/metadata/core-properties\"/>"
+            + "</Relationships>";
+
+    private static final String DOCUMENT_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Target=\"settings.xml\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/settings\"/>"
+            + "</Relationships>";
+
+    private static final String SETTINGS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<w:settings xmlns:w=\"" + W_NS + "\"/>";
+
+    private static final String APP_PROPERTIES = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<Properties xmlns=\"http://schemas.openxmlformats.org/officeDocument/2006/extended-properties\">"
+            + "<Application>Apache POI</Application></Properties>";
+
+    private final ZipOutputStream zip;
+    private final BufferedOutputStream buffer;
+    private final XMLStreamWriter xml;
+    private long bookmarkId;
+
+    public StreamingDocxWriter(OutputStream out) throws IOException {
+        this.zip = new ZipOutputStream(out);
+        writePart("[Content_Types].xml", CONTENT_TYPES);
+        writePart("_rels/.rels", PACKAGE_RELS);
+        writePart("docProps/app.xml", APP_PROPERTIES);
+        writePart("docProps/core.xml", coreProperties());
+        writePart("word/_rels/document.xml.rels", DOCUMENT_RELS);
+        writePart("word/settings.xml", SETTINGS);
+
+        zip.putNextEntry(new ZipEntry("word/document.xml"));
+        // the StAX writer emits many tiny writes, each of which would otherwise run the deflater
+        buffer = new BufferedOutputStream(zip, 16 * 1024);
+        try {
+            xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(buffer, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.setPrefix("w", W_NS);
+            xml.writeStartElement(W_NS, "document");
+            xml.writeNamespace("w", W_NS);
+            xml.writeStartElement(W_NS, "body");
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void addTitle(String text) throws IOException {
+        writeHeading("Heading1", text, 36, null);
+    }
+
+    @Override
+    public void addSubtitle(String text) throws IOException {
+        writeHeading("Heading2", text, 28, null);
+    }
+
+    @Override
+    public void addBookmarkedSubtitle(String text, String bookmark) throws IOException {
+        writeHeading("Heading2", text, 28, bookmark);
+    }
+
+    @Override
+    public void addParagraph(String text) throws IOException {
+        try {
+            xml.writeStartElement(W_NS, "p");
+            xml.writeStartElement(W_NS, "r");
+            xml.writeStartElement(W_NS, "rPr");
+            writeVal("sz", "22");
+            writeArialFonts();
+            xml.writeEndElement();
+            writeText(text);
+            xml.writeEndElement();
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void addBlankParagraph() throws IOException {
+        try {
+            xml.writeEmptyElement(W_NS, "p");
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void addLink(String label, String text, String bookmark) throws IOException {
+        try {
+            xml.writeStartElement(W_NS, "p");
+            xml.writeStartElement(W_NS, "r");
+            xml.writeStartElement(W_NS, "rPr");
+            writeVal("sz", "22");
+            writeArialFonts();
+            xml.writeEndElement();
+            writeText(label);
+            xml.writeEndElement();
+            xml.writeStartElement(W_NS, "hyperlink");
+            xml.writeAttribute(W_NS, "anchor", bookmark);
+            xml.writeStartElement(W_NS, "r");
+            xml.writeStartElement(W_NS, "rPr");
+            writeVal("sz", "22");
+            writeArialFonts();
+            writeVal("color", "0563C1");
+            writeVal("u", "single");
+            xml.writeEndElement();
+            writeText(text);
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void addDetailsTable(String[][] rows) throws IOException {
+        try {
+            writeTableStart();
+            for (String[] row : rows) {
+                writeRow(row, false);
+            }
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void startTable(String[] header) throws IOException {
+        try {
+            writeTableStart();
+            writeRow(header, true);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void addTableRow(String[] values) throws IOException {
+        try {
+            writeRow(values, false);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void endTable() throws IOException {
+        try {
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.writeEndElement(); // body
+            xml.writeEndElement(); // document
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+        buffer.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeHeading(String style, String text, int halfPoints, String bookmark) throws IOException {
+        try {
+            xml.writeStartElement(W_NS, "p");
+            xml.writeStartElement(W_NS, "pPr");
+            writeVal("pStyle", style);
+            xml.writeEndElement();
+            String id = String.valueOf(bookmarkId);
+            if (bookmark != null) {
+                xml.writeEmptyElement(W_NS, "bookmarkStart");
+                xml.writeAttribute(W_NS, "id", id);
+                xml.writeAttribute(W_NS, "name", bookmark);
+                bookmarkId++;
+            }
+            xml.writeStartElement(W_NS, "r");
+            xml.writeStartElement(W_NS, "rPr");
+            writeVal("b", "on");
+            writeVal("sz", String.valueOf(halfPoints));
+            writeArialFonts();
+            xml.writeEndElement();
+            writeText(text);
+            xml.writeEndElement();
+            if (bookmark != null) {
+                xml.writeEmptyElement(W_NS, "bookmarkEnd");
+                xml.writeAttribute(W_NS, "id", id);
+            }
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void writeTableStart() throws XMLStreamException {
+        xml.writeStartElement(W_NS, "tbl");
+        xml.writeStartElement(W_NS, "tblPr");
+        xml.writeEmptyElement(W_NS, "tblW");
+        xml.writeAttribute(W_NS, "w", "0");
+        xml.writeAttribute(W_NS, "type", "auto");
+        xml.writeStartElement(W_NS, "tblBorders");
+        for (String side : new String[]{"top", "left", "bottom", "right", "insideH", "insideV"}) {
+            writeVal(side, "single");
+        }
+        xml.writeEndElement();
+        xml.writeStartElement(W_NS, "tblCellMar");
+        for (String side : new String[]{"top", "left", "bottom", "right"}) {
+            xml.writeEmptyElement(W_NS, side);
+            xml.writeAttribute(W_NS, "type", "dxa");
+            xml.writeAttribute(W_NS, "w", "100");
+        }
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private void writeRow(String[] values, boolean header) throws XMLStreamException {
+        xml.writeStartElement(W_NS, "tr");
+        for (String value : values) {
+            xml.writeStartElement(W_NS, "tc");
+            if (header) {
+                xml.writeStartElement(W_NS, "tcPr");
+                xml.writeEmptyElement(W_NS, "shd");
+                xml.writeAttribute(W_NS, "color", "auto");
+                xml.writeAttribute(W_NS, "val", "clear");
+                xml.writeAttribute(W_NS, "fill", "D3D3D3");
+                xml.writeEndElement();
+            }
+            xml.writeStartElement(W_NS, "p");
+            xml.writeStartElement(W_NS, "r");
+            if (header) {
+                xml.writeStartElement(W_NS, "rPr");
+                writeVal("b", "on");
+                xml.writeEndElement();
+            }
+            writeText(value);
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    private void writeText(String text) throws XMLStreamException {
+        xml.writeStartElement(W_NS, "t");
+        if (!text.isEmpty() && (Character.isWhitespace(text.charAt(0))
+                || Character.isWhitespace(text.charAt(text.length() - 1)))) {
+            xml.writeAttribute("xml", XML_NS, "space", "preserve");
+        }
+        xml.writeCharacters(text);
+        xml.writeEndElement();
+    }
+
+    private void writeArialFonts() throws XMLStreamException {
+        xml.writeEmptyElement(W_NS, "rFonts");
+        xml.writeAttribute(W_NS, "ascii", "Arial");
+        xml.writeAttribute(W_NS, "hAnsi", "Arial");
+        xml.writeAttribute(W_NS, "cs", "Arial");
+        xml.writeAttribute(W_NS, "eastAsia", "Arial");
+    }
+
+    private void writeVal(String element, String value) throws XMLStreamException {
+        xml.writeEmptyElement(W_NS, element);
+        xml.writeAttribute(W_NS, "val", value);
+    }
+
+    private void writePart(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static String coreProperties() {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<cp:coreProperties xmlns:cp=\"http://schemas.openxmlformats.org/package/2006/metadata/core-properties\""
+                + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:dcterms=\"http://purl.org/dc/terms/\""
+                + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+                + "<dcterms:created xsi:type=\"dcterms:W3CDTF\">" + Instant.now().truncatedTo(ChronoUnit.SECONDS)
+                + "</dcterms:created><dc:creator>Apache POI</dc:creator></cp:coreProperties>";
+    }
+}
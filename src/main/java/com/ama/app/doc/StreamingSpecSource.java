@@ -0,0 +1,211 @@
+package com.ama.app.doc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+/**
+ * Reads a spec file with a {@link JsonParser} instead of building the whole tree.
+ * <ol>
+ * <li>A token scan records {@code info}, the {@code $ref}s used under {@code paths} and the refs each
+ * {@code components} entry uses, without materializing anything else.</li>
+ * <li>A second scan materializes only the components reachable from the paths.</li>
+ * <li>Rendering then streams {@code paths} again, materializing one path item at a time.</li>
+ * </ol>
+ * Peak memory is the referenced components plus the largest single path item. The file is read three
+ * times, which is cheap next to holding a tree several times its size. Only {@code #/components/...}
+ * refs can be resolved in this mode.
+ */
+public class StreamingSpecSource implements SpecSource {
+
+    private static final String REF = "$ref";
+
+    private final ObjectMapper mapper;
+    private final File file;
+    private JsonNode info = MissingNode.getInstance();
+    private boolean hasPaths;
+    private SpecIndex index;
+
+    private StreamingSpecSource(ObjectMapper mapper, File file) {
+        this.mapper = mapper;
+        this.file = file;
+    }
+
+    /** Runs the two scan passes; parse errors surface here, before anything is rendered. */
+    public static StreamingSpecSource open(ObjectMapper mapper, File file) throws IOException {
+        StreamingSpecSource source = new StreamingSpecSource(mapper, file);
+        Set<String> pathRefs = new HashSet<>();
+        Map<String, Set<String>> componentRefs = new HashMap<>();
+        source.scan(pathRefs, componentRefs);
+        source.index = SpecIndex.of(source.materialize(reachable(pathRefs, componentRefs)));
+        return source;
+    }
+
+    @Override
+    public JsonNode info() {
+        return info;
+    }
+
+    @Override
+    public boolean hasPaths() {
+        return hasPaths;
+    }
+
+    @Override
+    public SpecIndex index() {
+        return index;
+    }
+
+    @Override
+    public void forEachOperation(OperationVisitor visitor) throws IOException {
+        try (JsonParser p = openParser()) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (!"paths".equals(field) || p.currentToken() != JsonToken.START_OBJECT) {
+                    p.skipChildren();
+                    continue;
+                }
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String path = p.currentName();
+                    p.nextToken();
+                    JsonNode pathItem = p.readValueAsTree();
+                    Iterator<Map.Entry<String, JsonNode>> ops = pathItem.fields();
+                    while (ops.hasNext()) {
+                        Map.Entry<String, JsonNode> opEntry = ops.next();
+                        visitor.visit(path, opEntry.getKey().toUpperCase(), opEntry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private void scan(Set<String> pathRefs, Map<String, Set<String>> componentRefs) throws IOException {
+        try (JsonParser p = openParser()) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "info" -> info = p.readValueAsTree();
+                    case "paths" -> {
+                        hasPaths = true;
+                        collectRefs(p, pathRefs);
+                    }
+                    case "components" -> forEachComponent(p, (ref, parser) -> {
+                        Set<String> refs = new HashSet<>();
+                        collectRefs(parser, refs);
+                        componentRefs.put(ref, refs);
+                    });
+                    default -> p.skipChildren();
+                }
+            }
+        }
+    }
+
+    private Map<String, JsonNode> materialize(Set<String> needed) throws IOException {
+        Map<String, JsonNode> targets = new HashMap<>();
+        try (JsonParser p = openParser()) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (!"components".equals(field)) {
+                    p.skipChildren();
+                    continue;
+                }
+                forEachComponent(p, (ref, parser) -> {
+                    if (needed.contains(ref)) {
+                        targets.put(ref, parser.readValueAsTree());
+                    } else {
+                        parser.skipChildren();
+                    }
+                });
+            }
+        }
+        return targets;
+    }
+
+    private JsonParser openParser() throws IOException {
+        JsonParser p = mapper.createParser(file);
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Spec " + file + " is not an object");
+        }
+        return p;
+    }
+
+    /** Calls {@code visitor} positioned on the value of every {@code components/<section>/<name>} entry. */
+    private static void forEachComponent(JsonParser p, ComponentVisitor visitor) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String section = p.currentName();
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                visitor.visit(SpecIndex.componentRef(section, name), p);
+            }
+        }
+    }
+
+    /**
+     * Adds every {@code $ref} string inside the current value to {@code refs}, leaving the parser on the
+     * value's last token as {@link JsonParser#skipChildren()} would.
+     */
+    private static void collectRefs(JsonParser p, Set<String> refs) throws IOException {
+        JsonToken token = p.currentToken();
+        int depth = 0;
+        while (token != null) {
+            if (token == JsonToken.FIELD_NAME && REF.equals(p.currentName())) {
+                token = p.nextToken();
+                if (token == JsonToken.VALUE_STRING) {
+                    refs.add(p.getText());
+                    token = p.nextToken();
+                }
+                continue;
+            }
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == 0) {
+                return;
+            }
+            token = p.nextToken();
+        }
+    }
+
+    private static Set<String> reachable(Set<String> roots, Map<String, Set<String>> graph) {
+        Set<String> seen = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            String ref = pending.pop();
+            if (seen.add(ref)) {
+                pending.addAll(graph.getOrDefault(ref, Set.of()));
+            }
+        }
+        return seen;
+    }
+
+    @FunctionalInterface
+    private interface ComponentVisitor {
+        void visit(String ref, JsonParser parser) throws IOException;
+    }
+}
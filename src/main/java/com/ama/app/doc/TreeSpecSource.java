@@ -0,0 +1,52 @@
+package com.ama.app.doc;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Spec that has been read completely into a {@link JsonNode} tree.
+ */
+public class TreeSpecSource implements SpecSource {
+
+    private final JsonNode root;
+    private SpecIndex index;
+
+    public TreeSpecSource(JsonNode root) {
+        this.root = root;
+    }
+
+    @Override
+    public JsonNode info() {
+        return root.path("info");
+    }
+
+    @Override
+    public boolean hasPaths() {
+        return root.has("paths");
+    }
+
+    @Override
+    public synchronized SpecIndex index() {
+        if (index == null) {
+            index = SpecIndex.of(root);
+        }
+        return index;
+    }
+
+    @Override
+    public void forEachOperation(OperationVisitor visitor) throws IOException {
+        Iterator<Map.Entry<String, JsonNode>> paths = root.path("paths").fields();
+        while (paths.hasNext()) {
+            Map.Entry<String, JsonNode> entry = paths.next();
+            String path = entry.getKey();
+            Iterator<Map.Entry<String, JsonNode>> ops = entry.getValue().fields();
+            while (ops.hasNext()) {
+                Map.Entry<String, JsonNode> opEntry = ops.next();
+                visitor.visit(path, opEntry.getKey().toUpperCase(), opEntry.getValue());
+            }
+        }
+    }
+}
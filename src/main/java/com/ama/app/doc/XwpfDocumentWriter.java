@@ -0,0 +1,159 @@
+package com.ama.app.doc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+
+import org.apache.poi.xwpf.usermodel.*;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.*;
+
+/**
+ * Builds the document in memory with POI and writes it to the stream on {@link #close()}.
+ */
+public class XwpfDocumentWriter implements DocumentWriter {
+
+    private final XWPFDocument doc = new XWPFDocument();
+    private final OutputStream out;
+    private XWPFTable table;
+    private long bookmarkId;
+
+    public XwpfDocumentWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void addTitle(String text) {
+        XWPFParagraph p = doc.createParagraph();
+        p.setStyle("Heading1");
+        XWPFRun run = p.createRun();
+        run.setText(text);
+        run.setBold(true);
+        run.setFontSize(18);
+        run.setFontFamily("Arial");
+    }
+
+    @Override
+    public void addSubtitle(String text) {
+        XWPFParagraph p = doc.createParagraph();
+        p.setStyle("Heading2");
+        addSubtitleRun(p, text);
+    }
+
+    @Override
+    public void addBookmarkedSubtitle(String text, String bookmark) {
+        XWPFParagraph p = doc.createParagraph();
+        p.setStyle("Heading2");
+        BigInteger id = BigInteger.valueOf(bookmarkId++);
+        CTBookmark start = p.getCTP().addNewBookmarkStart();
+        start.setId(id);
+        start.setName(bookmark);
+        addSubtitleRun(p, text);
+        p.getCTP().addNewBookmarkEnd().setId(id);
+    }
+
+    @Override
+    public void addParagraph(String text) {
+        XWPFParagraph p = doc.createParagraph();
+        XWPFRun run = p.createRun();
+        run.setText(text);
+        run.setFontSize(11);
+        run.setFontFamily("Arial");
+    }
+
+    @Override
+    public void addBlankParagraph() {
+        doc.createParagraph();
+    }
+
+    @Override
+    public void addLink(String label, String text, String bookmark) {
+        XWPFParagraph p = doc.createParagraph();
+        XWPFRun run = p.createRun();
+        run.setText(label);
+        run.setFontSize(11);
+        run.setFontFamily("Arial");
+        CTHyperlink link = p.getCTP().addNewHyperlink();
+        link.setAnchor(bookmark);
+        XWPFHyperlinkRun linkRun = new XWPFHyperlinkRun(link, link.addNewR(), p);
+        linkRun.setText(text);
+        linkRun.setFontSize(11);
+        linkRun.setFontFamily("Arial");
+        linkRun.setColor("0563C1");
+        linkRun.setUnderline(UnderlinePatterns.SINGLE);
+    }
+
+    @Override
+    public void addDetailsTable(String[][] rows) {
+        XWPFTable detailsTable = doc.createTable(rows.length, 2);
+        setTableBorders(detailsTable);
+        for (int i = 0; i < rows.length; i++) {
+            XWPFTableRow row = detailsTable.getRow(i);
+            row.getCell(0).setText(rows[i][0]);
+            row.getCell(1).setText(rows[i][1]);
+        }
+    }
+
+    @Override
+    public void startTable(String[] header) {
+        table = doc.createTable(1, header.length);
+        setTableBorders(table);
+        setTableHeader(table.getRow(0), header);
+    }
+
+    @Override
+    public void addTableRow(String[] values) {
+        XWPFTableRow row = table.createRow();
+        for (int i = 0; i < values.length; i++) {
+            row.getCell(i).setText(values[i]);
+        }
+    }
+
+    @Override
+    public void endTable() {
+        table = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            doc.write(out);
+        } finally {
+            doc.close();
+        }
+    }
+
+    private static void addSubtitleRun(XWPFParagraph p, String text) {
+        XWPFRun run = p.createRun();
+        run.setText(text);
+        run.setBold(true);
+        run.setFontSize(14);
+        run.setFontFamily("Arial");
+    }
+
+    // Helper methods for table formatting
+    private void setTableBorders(XWPFTable table) {
+        table.setCellMargins(100, 100, 100, 100);
+        CTTblPr tblPr = table.getCTTbl().getTblPr();
+        CTTblBorders borders = tblPr.addNewTblBorders();
+        borders.addNewBottom().setVal(STBorder.SINGLE);
+        borders.addNewLeft().setVal(STBorder.SINGLE);
+        borders.addNewRight().setVal(STBorder.SINGLE);
+        borders.addNewTop().setVal(STBorder.SINGLE);
+        borders.addNewInsideH().setVal(STBorder.SINGLE);
+        borders.addNewInsideV().setVal(STBorder.SINGLE);
+    }
+
+    private void setTableHeader(XWPFTableRow row, String[] values) {
+        for (int i = 0; i < values.length; i++) {
+            XWPFTableCell cell = row.getCell(i);
+            if (cell == null) cell = row.addNewTableCell();
+            cell.setText(values[i]);
+            cell.setColor("D3D3D3"); // Light gray background
+            for (XWPFParagraph p : cell.getParagraphs()) {
+                for (XWPFRun r : p.getRuns()) {
+                    r.setBold(true);
+                }
+            }
+        }
+    }
+}
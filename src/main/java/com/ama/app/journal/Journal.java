@@ -0,0 +1,374 @@
+package com.ama.app.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log of records on local disk, split into memory-mapped segments of a fixed size. Each
+ * record gets the next offset; {@link #append} only copies it into the mapped segment and
+ * {@link #flush} forces everything appended since the last flush at once, so a batch of records costs
+ * a single sync. Readers only see flushed records.
+ * <p>
+ * A record is {@code length, crc, offset, payload}, the CRC covering offset and payload. A segment
+ * is named after its first offset and ends at the first zero length. On open the last segment is
+ * checked record by record and cut at the first torn or corrupt one, which is what a crash leaves
+ * behind. When a record does not fit, the segment is flushed and a new one started; only the newest
+ * {@code retainSegments} are kept. The directory is synced whenever a segment is created or deleted,
+ * so a crash cannot lose a segment file whose records were already forced. A new segment only takes
+ * appends once its file is durable; when starting it fails, the current one stays active and the next
+ * append tries again.
+ * <p>
+ * A writer whose batch fails part way calls {@link #discard}, which drops the records appended since
+ * the last flush; everything before {@link #nextOffset} is then on disk, including the records that
+ * were flushed when a roll fell into the batch.
+ * <p>
+ * Each segment indexes the position of every {@value #INDEX_INTERVAL}th record, so a read starts
+ * scanning at most that many records before the offset asked for.
+ * <p>
+ * {@link #append} and {@link #flush} must be called from one thread; {@link #read} from any.
+ */
+@Slf4j
+public class Journal implements Closeable {
+
+    static final int HEADER = 16;
+    static final int INDEX_INTERVAL = 256;
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int retainSegments;
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private Segment active;
+    private long nextOffset;
+    /** Offset after the last forced record. */
+    private long flushedOffset;
+
+    public Journal(Path dir, int segmentBytes, int retainSegments) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.segmentBytes = segmentBytes;
+        this.retainSegments = retainSegments;
+        List<Long> bases = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(f -> f.getFileName().toString())
+                .filter(name -> name.endsWith(SUFFIX))
+                .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+                .sorted()
+                .forEach(bases::add);
+        }
+        for (int i = 0; i < bases.size() - 1; i++) {
+            segments.put(bases.get(i), Segment.open(file(bases.get(i)), bases.get(i), bases.get(i + 1)));
+        }
+        if (bases.isEmpty()) {
+            roll(0);
+        } else {
+            long base = bases.get(bases.size() - 1);
+            active = Segment.recover(file(base), base, segmentBytes);
+            segments.put(base, active);
+            nextOffset = active.nextOffset;
+        }
+        flushedOffset = nextOffset;
+        log.info("Journal at {} has {} segments, next offset {}", dir, segments.size(), nextOffset);
+    }
+
+    /** Offset the next record will get. */
+    public long nextOffset() {
+        return nextOffset;
+    }
+
+    /** Largest payload a record can have. */
+    public int maxPayload() {
+        return segmentBytes - HEADER;
+    }
+
+    /** First offset still retained. */
+    public long firstOffset() {
+        return segments.firstKey();
+    }
+
+    public long append(byte[] payload) throws IOException {
+        if (payload.length > maxPayload()) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit a segment");
+        }
+        if (active.position + HEADER + payload.length > segmentBytes) {
+            flush();
+            roll(nextOffset);
+        }
+        long offset = nextOffset++;
+        active.write(offset, payload);
+        return offset;
+    }
+
+    /** Forces every record appended so far to disk and makes it readable. */
+    public void flush() {
+        active.flush();
+        flushedOffset = nextOffset;
+    }
+
+    /**
+     * Drops the records appended since the last flush and hands their offsets out again. Their bytes
+     * are zeroed and forced, so recovery does not find the ones the OS already wrote back.
+     */
+    public void discard() {
+        long from = flushedOffset;
+        nextOffset = from;
+        active.discard(from);
+    }
+
+    /** Up to {@code max} flushed records from {@code offset} on, or from the first retained one if that is later. */
+    public List<JournalRecord> read(long offset, int max) {
+        List<JournalRecord> records = new ArrayList<>();
+        Map.Entry<Long, Segment> floor = segments.floorEntry(offset);
+        Long base = floor == null ? segments.firstKey() : floor.getKey();
+        for (Segment segment : segments.tailMap(base, true).values()) {
+            if (records.size() >= max) {
+                break;
+            }
+            segment.read(offset, max, records);
+        }
+        return records;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void roll(long base) throws IOException {
+        if (active != null) {
+            active.seal();
+        }
+        Segment next = Segment.create(file(base), base, segmentBytes);
+        try {
+            syncDirectory();
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(next.file);
+            } catch (IOException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
+        segments.put(base, next);
+        active = next;
+        boolean dropped = false;
+        while (segments.size() > retainSegments) {
+            Segment oldest = segments.pollFirstEntry().getValue();
+            try {
+                // a reader may still hold its mapping, which stays valid after the delete
+                Files.deleteIfExists(oldest.file);
+                log.info("Journal segment {} dropped", oldest.file.getFileName());
+                dropped = true;
+            } catch (IOException e) {
+                // no longer read, and dropped again after a restart
+                log.warn("Journal segment {} could not be deleted", oldest.file.getFileName(), e);
+            }
+        }
+        if (dropped) {
+            try {
+                syncDirectory();
+            } catch (IOException e) {
+                log.warn("Syncing journal directory {} after dropping segments failed", dir, e);
+            }
+        }
+    }
+
+    /** Makes the creation and deletion of segment files durable, which forcing their content does not. */
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private Path file(long base) {
+        return dir.resolve(String.format("%020d%s", base, SUFFIX));
+    }
+
+    private static class Segment {
+        final Path file;
+        final long baseOffset;
+        final MappedByteBuffer buffer;
+        /** Position of every {@link #INDEX_INTERVAL}th record by offset, the first one included. */
+        final NavigableMap<Long, Integer> index = new ConcurrentSkipListMap<>();
+        /** Write position, only used by the appending thread. */
+        int position;
+        long nextOffset;
+        int flushedPosition;
+        /** End of the readable records; everything before it has been forced. */
+        volatile int committedPosition;
+
+        private Segment(Path file, long baseOffset, MappedByteBuffer buffer, int position, long nextOffset) {
+            this.file = file;
+            this.baseOffset = baseOffset;
+            this.buffer = buffer;
+            this.position = position;
+            this.nextOffset = nextOffset;
+            this.flushedPosition = position;
+            this.committedPosition = position;
+        }
+
+        /** A new, empty segment; a file left behind by a roll that failed before is reused. */
+        static Segment create(Path file, long base, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(file, base, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), 0, base);
+            }
+        }
+
+        /** A sealed segment; it is trusted up to its first zero length, it was forced before the next was started. */
+        static Segment open(Path file, long base, long next) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                Segment segment = new Segment(file, base, buffer, 0, next);
+                int position = 0;
+                long offset = base;
+                while (position + HEADER <= buffer.capacity()) {
+                    int length = buffer.getInt(position);
+                    if (length <= 0 || position + HEADER + length > buffer.capacity()) {
+                        break;
+                    }
+                    segment.indexRecord(offset++, position);
+                    position += HEADER + length;
+                }
+                segment.position = position;
+                segment.flushedPosition = position;
+                segment.committedPosition = position;
+                return segment;
+            }
+        }
+
+        /** The segment that was being written; cut at the first record that is not intact. */
+        static Segment recover(Path file, long base, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER);
+                NavigableMap<Long, Integer> index = new TreeMap<>();
+                long position = 0;
+                long offset = base;
+                while (position + HEADER <= channel.size()) {
+                    header.clear();
+                    channel.read(header, position);
+                    int length = header.getInt(0);
+                    if (length <= 0 || position + HEADER + length > channel.size()
+                            || header.getLong(8) != offset) {
+                        break;
+                    }
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    channel.read(payload, position + HEADER);
+                    if (crc(offset, payload.flip()) != header.getInt(4)) {
+                        break;
+                    }
+                    if ((offset - base) % INDEX_INTERVAL == 0) {
+                        index.put(offset, (int) position);
+                    }
+                    position += HEADER + length;
+                    offset++;
+                }
+                if (position < channel.size()) {
+                    // pages may reach the disk out of order, so anything after a bad record is dropped too
+                    if (readsNonZero(channel, position)) {
+                        log.warn("Journal segment {} cut at byte {} after a torn write, next offset {}",
+                                file.getFileName(), position, offset);
+                    }
+                    channel.truncate(position);
+                }
+                // mapping past the end grows the file with zeros again
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, position));
+                Segment segment = new Segment(file, base, buffer, (int) position, offset);
+                segment.index.putAll(index);
+                return segment;
+            }
+        }
+
+        void write(long offset, byte[] payload) {
+            indexRecord(offset, position);
+            buffer.putLong(position + 8, offset);
+            buffer.put(position + HEADER, payload);
+            buffer.putInt(position + 4, crc(offset, ByteBuffer.wrap(payload)));
+            // the length goes last, a reader never sees a record without its body
+            buffer.putInt(position, payload.length);
+            position += HEADER + payload.length;
+            nextOffset = offset + 1;
+        }
+
+        void flush() {
+            if (position > flushedPosition) {
+                buffer.force(flushedPosition, position - flushedPosition);
+                flushedPosition = position;
+                committedPosition = position;
+            }
+        }
+
+        void seal() {
+            flush();
+        }
+
+        /** Rewinds to the flushed position, which {@code offset} is the next offset of. */
+        void discard(long offset) {
+            int end = position;
+            position = flushedPosition;
+            nextOffset = offset;
+            index.tailMap(offset, true).clear();
+            if (end > position) {
+                buffer.put(position, new byte[end - position]);
+                buffer.force(position, end - position);
+            }
+        }
+
+        void indexRecord(long offset, int position) {
+            if ((offset - baseOffset) % INDEX_INTERVAL == 0) {
+                index.put(offset, position);
+            }
+        }
+
+        void read(long from, int max, List<JournalRecord> records) {
+            ByteBuffer view = buffer.duplicate();
+            int end = committedPosition;
+            // an indexed position at or past end belongs to a record that is not readable yet
+            Map.Entry<Long, Integer> start = index.floorEntry(from);
+            int position = start == null ? 0 : start.getValue();
+            while (position < end && records.size() < max) {
+                int length = view.getInt(position);
+                long offset = view.getLong(position + 8);
+                if (offset >= from) {
+                    byte[] payload = new byte[length];
+                    view.get(position + HEADER, payload);
+                    records.add(new JournalRecord(offset, payload));
+                }
+                position += HEADER + length;
+            }
+        }
+
+        private static boolean readsNonZero(FileChannel channel, long position) throws IOException {
+            ByteBuffer probe = ByteBuffer.allocate(HEADER);
+            channel.read(probe, position);
+            for (int i = 0; i < probe.position(); i++) {
+                if (probe.get(i) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int crc(long offset, ByteBuffer payload) {
+            CRC32C crc = new CRC32C();
+            crc.update(ByteBuffer.allocate(8).putLong(0, offset));
+            crc.update(payload);
+            return (int) crc.getValue();
+        }
+    }
+}
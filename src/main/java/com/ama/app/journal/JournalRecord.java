@@ -0,0 +1,4 @@
+package com.ama.app.journal;
+
+public record JournalRecord(long offset, byte[] payload) {
+}
@@ -0,0 +1,27 @@
+package com.ama.app.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Generated documentation cache counters")
+public class DocumentCacheStatsResponse {
+    @Schema(description = "Requests served from the in-memory tier")
+    private long memoryHits;
+    @Schema(description = "Requests served from the on-disk tier")
+    private long diskHits;
+    @Schema(description = "Requests that had to render the document")
+    private long misses;
+    @Schema(description = "Entries dropped from the in-memory tier")
+    private long memoryEvictions;
+    @Schema(description = "Entries deleted from the on-disk tier")
+    private long diskEvictions;
+    @Schema(description = "Entries currently held in memory")
+    private int memoryEntries;
+    @Schema(description = "Bytes currently held in memory")
+    private long memoryBytes;
+    @Schema(description = "Entries currently held on disk")
+    private int diskEntries;
+    @Schema(description = "Bytes currently held on disk")
+    private long diskBytes;
+}
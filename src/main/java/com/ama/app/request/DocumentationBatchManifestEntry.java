@@ -0,0 +1,21 @@
+package com.ama.app.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Outcome of one spec in a batch ZIP")
+public class DocumentationBatchManifestEntry {
+    @Schema(description = "Spec path as submitted")
+    private String yamlPath;
+    @Schema(description = "OK or FAILED")
+    private String status;
+    @Schema(description = "Name of the document inside the ZIP, absent when FAILED")
+    private String entry;
+    @Schema(description = "Size of the document in bytes")
+    private long bytes;
+    @Schema(description = "Render time in milliseconds")
+    private long millis;
+    @Schema(description = "Failure reason when FAILED")
+    private String error;
+}
@@ -0,0 +1,15 @@
+package com.ama.app.request;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+@Data
+@Schema(description = "Specs to render into a single ZIP")
+public class DocumentationBatchRequest {
+    @NotEmpty(message = "yamlPaths is required")
+    @Schema(description = "Server side paths of the YAML or JSON specs", required = true)
+    private List<String> yamlPaths;
+}
@@ -0,0 +1,23 @@
+package com.ama.app.request;
+
+import java.time.Instant;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Asynchronous documentation job")
+public class DocumentationJobResponse {
+    @Schema(description = "Job identifier used to poll and download")
+    private String jobId;
+    @Schema(description = "QUEUED, RUNNING, COMPLETED or FAILED")
+    private String status;
+    @Schema(description = "When the job was accepted")
+    private Instant submittedAt;
+    @Schema(description = "When the job completed or failed")
+    private Instant finishedAt;
+    @Schema(description = "Until when the result can be downloaded")
+    private Instant expiresAt;
+    @Schema(description = "Failure reason for FAILED jobs")
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.ama.app.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "An accepted notification with the headers it came with")
+public class NotificationEnvelope {
+    @Schema(description = "channel_identifer header")
+    private String channelId;
+    @Schema(description = "transaction_date_time header")
+    private String transactionDateTime;
+    @Schema(description = "transaction_time_zone header")
+    private String transactionTimeZone;
+    @Schema(description = "country_of_origin header")
+    private String countryOfOrigin;
+    @Schema(description = "transaction_id header")
+    private String transactionId;
+    @Schema(description = "The notification as it was sent")
+    private NotificationRequest request;
+}
@@ -0,0 +1,12 @@
+package com.ama.app.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "A notification read back from the journal")
+public class NotificationJournalEntry {
+    @Schema(description = "Position of the notification in the journal")
+    private long offset;
+    private NotificationEnvelope notification;
+}
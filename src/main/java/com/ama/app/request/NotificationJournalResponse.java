@@ -0,0 +1,17 @@
+package com.ama.app.request;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "A page of the notification journal")
+public class NotificationJournalResponse {
+    @Schema(description = "Notifications from the requested offset on, in journal order")
+    private List<NotificationJournalEntry> entries;
+    @Schema(description = "Offset to continue reading from")
+    private long nextOffset;
+    @Schema(description = "Oldest offset still retained")
+    private long firstOffset;
+}
@@ -0,0 +1,26 @@
+package com.ama.app.request;
+
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Latency of the notification API for one endpoint, channel, country and outcome")
+public class NotificationLatencyResponse {
+    @Schema(description = "create or create/bulk")
+    private String endpoint;
+    @Schema(description = "channel_identifer, or other once too many channels were seen")
+    private String channel;
+    @Schema(description = "country_of_origin, or other once too many countries were seen")
+    private String country;
+    @Schema(description = "success, invalid, rejected or error")
+    private String outcome;
+    @Schema(description = "Requests recorded since startup")
+    private long count;
+    private double meanMs;
+    @Schema(description = "Slowest request of the recent window")
+    private double maxMs;
+    @Schema(description = "Percentiles of the recent window, e.g. p99")
+    private Map<String, Double> percentilesMs;
+}
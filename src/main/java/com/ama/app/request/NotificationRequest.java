@@ -10,36 +10,28 @@ import lombok.Data;
 @Data
 public class NotificationRequest {
 
-    // Primitive types (mandatory)
-    @NotNull(message = "byteValue is required")
+    // Primitive types (mandatory); never null, an absent value binds as the type's default
     @Schema(description = "Primitive byte value", required = true)
     private byte byteValue;
 
-    @NotNull(message = "shortValue is required")
     @Schema(description = "Primitive short value", required = true)
     private short shortValue;
 
-    @NotNull(message = "intValue is required")
     @Schema(description = "Primitive int value", required = true)
     private int intValue;
 
-    @NotNull(message = "longValue is required")
     @Schema(description = "Primitive long value", required = true)
     private long longValue;
 
-    @NotNull(message = "floatValue is required")
     @Schema(description = "Primitive float value", required = true)
     private float floatValue;
 
-    @NotNull(message = "doubleValue is required")
     @Schema(description = "Primitive double value", required = true)
     private double doubleValue;
 
-    @NotNull(message = "booleanValue is required")
     @Schema(description = "Primitive boolean value", required = true)
     private boolean booleanValue;
 
-    @NotNull(message = "charValue is required")
     @Schema(description = "Primitive char value", required = true, maxLength = 1)
     private char charValue;
 
@@ -0,0 +1,172 @@
+package com.ama.app.service;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ama.app.request.NotificationResponse;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Remembers the response of each transaction id and channel for {@code notification.idempotency.ttl},
+ * so a retried request gets the original response instead of being processed again. A duplicate that
+ * arrives while the first is still being processed waits for its result. A request that fails,
+ * including one rejected with 429 because the queue is full, is dropped as soon as it does: it takes
+ * no room and its retry runs again. Only the duplicates that were already waiting share the failure.
+ * <p>
+ * Entries are kept in insertion order; as every entry lives equally long that is also expiry order,
+ * so expired entries and, past {@code max-entries}, the oldest ones are dropped from the head on each
+ * insert without a sweeper thread or a global lock. The size counts queued entries, including expired
+ * ones already replaced, so the queue itself stays within {@code max-entries}.
+ * <p>
+ * {@code max-entries} wins over the TTL: a response is only remembered for as long as it takes
+ * {@code max-entries} new requests to arrive. At 100,000 entries and 20,000 requests a second that is
+ * five seconds, whatever the TTL. Size it to at least the TTL times the peak request rate; evictions
+ * tagged {@code cause=size} show when it is too small.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Deque<Entry> order = new ConcurrentLinkedDeque<>();
+    /** Entries in {@link #order}; the map never holds more. */
+    private final AtomicInteger size = new AtomicInteger();
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public IdempotencyCache(
+            @Value("${notification.idempotency.ttl:PT10M}") Duration ttl,
+            @Value("${notification.idempotency.max-entries:100000}") int maxEntries,
+            MeterRegistry registry) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        FunctionCounter.builder("notification.idempotency.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("notification.idempotency.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("notification.idempotency.evictions", expirations, LongAdder::sum)
+                .tag("cause", "expired").register(registry);
+        FunctionCounter.builder("notification.idempotency.evictions", evictions, LongAdder::sum)
+                .tag("cause", "size").register(registry);
+        FunctionCounter.builder("notification.idempotency.evictions", failures, LongAdder::sum)
+                .tag("cause", "failed").register(registry);
+        Gauge.builder("notification.idempotency.size", size, AtomicInteger::get).register(registry);
+    }
+
+    /**
+     * The response remembered for {@code transactionId} on {@code channel}, or the result of
+     * {@code process} which is remembered from now on.
+     */
+    public NotificationResponse get(String transactionId, String channel, Supplier<NotificationResponse> process) {
+        Key key = new Key(transactionId, channel);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isUsable(now)) {
+            hits.increment();
+            return join(entry.response);
+        }
+
+        Entry created = new Entry(key, new CompletableFuture<>(), now + ttlNanos);
+        while (true) {
+            // a failed entry is about to be dropped by the request that failed
+            if (entry != null && entries.remove(key, entry) && entry.isExpired(now)) {
+                // replaced by created below; it leaves the queue when it reaches the head
+                expirations.increment();
+            }
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                break;
+            }
+            if (entry.isUsable(now)) {
+                hits.increment();
+                return join(entry.response);
+            }
+        }
+        misses.increment();
+        size.incrementAndGet();
+        order.add(created);
+        trim(now);
+
+        try {
+            NotificationResponse response = process.get();
+            created.response.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            forget(created);
+            created.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void forget(Entry entry) {
+        entries.remove(entry.key, entry);
+        // added while the request was processed, so it is found a few entries from the tail
+        if (order.removeLastOccurrence(entry)) {
+            size.decrementAndGet();
+        }
+        failures.increment();
+    }
+
+    private void trim(long now) {
+        Entry head;
+        while ((head = order.peek()) != null) {
+            boolean expired = head.isExpired(now);
+            if (!expired && size.get() <= maxEntries) {
+                return;
+            }
+            if (!order.remove(head)) {
+                // another thread took it
+                continue;
+            }
+            size.decrementAndGet();
+            if (entries.remove(head.key, head)) {
+                (expired ? expirations : evictions).increment();
+            }
+        }
+    }
+
+    private static NotificationResponse join(CompletableFuture<NotificationResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            // the first attempt failed; let the duplicate see the same failure
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(String transactionId, String channel) {
+    }
+
+    private record Entry(Key key, CompletableFuture<NotificationResponse> response, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        /** Still in flight or succeeded, and not expired. */
+        boolean isUsable(long now) {
+            return !isExpired(now) && !response.isCompletedExceptionally();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.ama.app.service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.ama.app.journal.Journal;
+import com.ama.app.journal.JournalRecord;
+import com.ama.app.request.NotificationEnvelope;
+import com.ama.app.request.NotificationJournalEntry;
+import com.ama.app.request.NotificationJournalResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes accepted notifications durable. Submitted notifications wait in a bounded queue; a single
+ * writer thread takes them in batches of up to {@code batch-size}, lingering up to {@code linger} for
+ * a batch to fill, appends them to the {@link Journal} and forces it once per batch before completing
+ * their futures. Under load batches fill without lingering, so the cost of the sync is shared.
+ * When the queue is full {@link #submit} throws {@link RejectedExecutionException}; a notification
+ * that cannot be serialized or does not fit a segment is answered with 400 or 413.
+ * <p>
+ * On shutdown a marker is queued behind the pending notifications and the writer stops once it
+ * reaches it. The writer is never interrupted, which would close the journal's channels mid-write.
+ */
+@Slf4j
+@Service
+public class NotificationDispatcher {
+
+    private static final Pending STOP = new Pending(new byte[0], new CompletableFuture<>());
+
+    private final BlockingQueue<Pending> queue;
+    private final Journal journal;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private DistributionSummary batches;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public NotificationDispatcher(
+            @Value("${notification.dispatch.queue-capacity:8192}") int queueCapacity,
+            @Value("${notification.dispatch.batch-size:512}") int batchSize,
+            @Value("${notification.dispatch.linger:PT0.001S}") Duration linger,
+            @Value("${notification.journal.dir:${java.io.tmpdir}/notification-journal}") String dir,
+            @Value("${notification.journal.segment-bytes:67108864}") int segmentBytes,
+            @Value("${notification.journal.retain-segments:16}") int retainSegments) throws IOException {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.journal = new Journal(Paths.get(dir), segmentBytes, retainSegments);
+        this.writer = new Thread(this::write, "notification-journal");
+    }
+
+    @PostConstruct
+    public void start() {
+        Gauge.builder("notification.dispatch.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting to be journaled")
+                .register(meterRegistry);
+        batches = DistributionSummary.builder("notification.dispatch.batch.size")
+                .description("Notifications journaled per sync")
+                .register(meterRegistry);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        queue.put(STOP);
+        writer.join();
+        // submitted while shutdown began, after the writer's last look at the queue
+        List<Pending> late = new ArrayList<>();
+        queue.drainTo(late);
+        late.forEach(pending -> pending.offset.completeExceptionally(new RejectedExecutionException("Shutting down")));
+        journal.close();
+    }
+
+    /**
+     * Queues {@code notification}, waiting up to {@code wait} for room. The future completes with its
+     * journal offset once it is on disk.
+     */
+    public CompletableFuture<Long> submit(NotificationEnvelope notification, Duration wait) throws InterruptedException {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(notification);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Notification could not be serialized", e);
+        }
+        if (payload.length > journal.maxPayload()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Notification of " + payload.length + " bytes does not fit a journal segment");
+        }
+        Pending pending = new Pending(payload, new CompletableFuture<>());
+        if (!running || !queue.offer(pending, wait.toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new RejectedExecutionException("Notification queue is full");
+        }
+        return pending.offset;
+    }
+
+    /** Up to {@code limit} journaled notifications from {@code offset} on, for consumers catching up. */
+    public NotificationJournalResponse replay(long offset, int limit) throws IOException {
+        List<NotificationJournalEntry> entries = new ArrayList<>();
+        for (JournalRecord record : journal.read(offset, limit)) {
+            NotificationJournalEntry entry = new NotificationJournalEntry();
+            entry.setOffset(record.offset());
+            entry.setNotification(objectMapper.readValue(record.payload(), NotificationEnvelope.class));
+            entries.add(entry);
+        }
+        NotificationJournalResponse response = new NotificationJournalResponse();
+        response.setEntries(entries);
+        response.setFirstOffset(journal.firstOffset());
+        response.setNextOffset(entries.isEmpty()
+                ? Math.max(offset, journal.firstOffset())
+                : entries.get(entries.size() - 1).getOffset() + 1);
+        return response;
+    }
+
+    private void write() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - batch.size());
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize && !batch.contains(STOP)) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // not sent by shutdown(), but stop all the same once the queue is journaled
+                stopping = true;
+            }
+            stopping |= batch.remove(STOP);
+            if (stopping) {
+                queue.drainTo(batch);
+                batch.remove(STOP);
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        long[] offsets = new long[batch.size()];
+        int appended = 0;
+        try {
+            while (appended < batch.size()) {
+                offsets[appended] = journal.append(batch.get(appended).payload);
+                appended++;
+            }
+            journal.flush();
+        } catch (IOException | RuntimeException e) {
+            fail(batch, offsets, appended, e);
+            return;
+        }
+        batches.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).offset.complete(offsets[i]);
+        }
+    }
+
+    /**
+     * Settles a batch that failed part way. The records a roll flushed before the failure are on disk
+     * and complete with their offsets; the rest are discarded from the journal before they fail, so a
+     * client retrying them does not journal them twice.
+     */
+    private void fail(List<Pending> batch, long[] offsets, int appended, Exception e) {
+        try {
+            journal.discard();
+        } catch (RuntimeException discardFailure) {
+            e.addSuppressed(discardFailure);
+        }
+        long durable = journal.nextOffset();
+        int landed = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (i < appended && offsets[i] < durable) {
+                batch.get(i).offset.complete(offsets[i]);
+                landed++;
+            } else {
+                batch.get(i).offset.completeExceptionally(e);
+            }
+        }
+        if (landed > 0) {
+            batches.record(landed);
+        }
+        log.error("Journaling {} of {} notifications failed", batch.size() - landed, batch.size(), e);
+    }
+
+    private record Pending(byte[] payload, CompletableFuture<Long> offset) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.ama.app.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ama.app.request.NotificationLatencyResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Micrometer meters of the notification API, tagged by channel and country so an SLA miss can be
+ * traced to the channel or country causing it.
+ * <ul>
+ * <li>{@code notification.requests{endpoint,channel,country,outcome}}: latency, with percentiles;</li>
+ * <li>{@code notification.payload.size{channel,country}}: bytes per notification;</li>
+ * <li>{@code notification.validation.failures{channel,country,field}}: rejected notifications.</li>
+ * </ul>
+ * Channel and country come from request headers, so each tag keeps only the first
+ * {@code max-channels} / {@code max-countries} values it sees; later ones are counted as
+ * {@code other}. That bounds the number of series whatever clients send. Percentiles are computed
+ * in the service; the histogram buckets for server-side aggregation, some seventy series per timer,
+ * are only published when {@code percentile-histogram} is set.
+ */
+@Component
+public class NotificationMetrics {
+
+    static final String OTHER = "other";
+    static final String UNKNOWN = "unknown";
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final int MAX_TAG_LENGTH = 32;
+
+    private final MeterRegistry registry;
+    private final TagLimit channels;
+    private final TagLimit countries;
+    // meters looked up per request, keyed by their tag values to skip building ids on the hot path
+    private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<List<String>, DistributionSummary> payloads = new ConcurrentHashMap<>();
+    private final Map<List<String>, Counter> validationFailures = new ConcurrentHashMap<>();
+    private final boolean percentileHistogram;
+
+    public NotificationMetrics(MeterRegistry registry,
+            @Value("${notification.metrics.max-channels:16}") int maxChannels,
+            @Value("${notification.metrics.max-countries:32}") int maxCountries,
+            @Value("${notification.metrics.percentile-histogram:false}") boolean percentileHistogram) {
+        this.registry = registry;
+        this.percentileHistogram = percentileHistogram;
+        this.channels = new TagLimit(maxChannels);
+        this.countries = new TagLimit(maxCountries);
+    }
+
+    public void recordRequest(String endpoint, String channel, String country, String outcome, long nanos) {
+        List<String> tags = List.of(endpoint, channels.tag(channel), countries.tag(country), outcome);
+        timers.computeIfAbsent(tags, t -> Timer.builder("notification.requests")
+                .description("Notification API latency")
+                .tags("endpoint", t.get(0), "channel", t.get(1), "country", t.get(2), "outcome", t.get(3))
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram(percentileHistogram)
+                .register(registry))
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPayload(String channel, String country, long bytes) {
+        List<String> tags = List.of(channels.tag(channel), countries.tag(country));
+        payloads.computeIfAbsent(tags, t -> DistributionSummary.builder("notification.payload.size")
+                .description("Size of one notification as sent")
+                .baseUnit("bytes")
+                .tags("channel", t.get(0), "country", t.get(1))
+                .register(registry))
+            .record(bytes);
+    }
+
+    /** {@code field} is the request field that failed, or {@code malformed} when the record was not readable at all. */
+    public void recordValidationFailure(String channel, String country, String field) {
+        List<String> tags = List.of(channels.tag(channel), countries.tag(country), field);
+        validationFailures.computeIfAbsent(tags, t -> Counter.builder("notification.validation.failures")
+                .description("Notifications rejected as invalid")
+                .tags("channel", t.get(0), "country", t.get(1), "field", t.get(2))
+                .register(registry))
+            .increment();
+    }
+
+    /** Latency percentiles of every series, the slowest p99 first. */
+    public List<NotificationLatencyResponse> latencies() {
+        List<NotificationLatencyResponse> latencies = new ArrayList<>();
+        for (Timer timer : registry.find("notification.requests").timers()) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            NotificationLatencyResponse latency = new NotificationLatencyResponse();
+            latency.setEndpoint(timer.getId().getTag("endpoint"));
+            latency.setChannel(timer.getId().getTag("channel"));
+            latency.setCountry(timer.getId().getTag("country"));
+            latency.setOutcome(timer.getId().getTag("outcome"));
+            latency.setCount(snapshot.count());
+            latency.setMeanMs(snapshot.mean(TimeUnit.MILLISECONDS));
+            latency.setMaxMs(snapshot.max(TimeUnit.MILLISECONDS));
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                percentiles.put(label(value.percentile()), value.value(TimeUnit.MILLISECONDS));
+            }
+            latency.setPercentilesMs(percentiles);
+            latencies.add(latency);
+        }
+        latencies.sort(Comparator.comparing((NotificationLatencyResponse l) -> l.getPercentilesMs().getOrDefault("p99", 0.0))
+                .reversed());
+        return latencies;
+    }
+
+    /** 0.99 as {@code p99}, 0.999 as {@code p99.9}. */
+    private static String label(double percentile) {
+        return "p" + BigDecimal.valueOf(percentile).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+
+    /** Passes through the first {@code max} distinct values and folds the rest into {@code other}. */
+    private static class TagLimit {
+        private final Set<String> values = ConcurrentHashMap.newKeySet();
+        private final int max;
+
+        TagLimit(int max) {
+            this.max = max;
+        }
+
+        String tag(String value) {
+            if (value == null || value.isBlank()) {
+                return UNKNOWN;
+            }
+            String tag = value.length() > MAX_TAG_LENGTH ? value.substring(0, MAX_TAG_LENGTH) : value;
+            if (values.contains(tag)) {
+                return tag;
+            }
+            // may let a value or two more in under contention, which only loosens the bound slightly
+            if (values.size() < max && values.add(tag)) {
+                return tag;
+            }
+            return values.contains(tag) ? tag : OTHER;
+        }
+    }
+}
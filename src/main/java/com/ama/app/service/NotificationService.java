@@ -0,0 +1,281 @@
+package com.ama.app.service;
+
+import static com.ama.app.constants.ApplicationConstants.ERROR_CODE_INVALID;
+import static com.ama.app.constants.ApplicationConstants.ERROR_CODE_MALFORMED;
+import static com.ama.app.constants.ApplicationConstants.ERROR_CODE_SUCCESS;
+import static com.ama.app.constants.ApplicationConstants.ERROR_CODE_UNAVAILABLE;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.ama.app.request.NotificationEnvelope;
+import com.ama.app.request.NotificationRequest;
+import com.ama.app.request.NotificationResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class NotificationService {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    /** {@code error_text} is documented as at most 100 characters. */
+    private static final int MAX_ERROR_TEXT = 100;
+    private static final String MALFORMED = "malformed";
+
+    @Autowired
+    private NotificationDispatcher dispatcher;
+
+    @Autowired
+    private NotificationMetrics metrics;
+
+    @Value("${notification.bulk.max-line-bytes:65536}")
+    private int maxLineBytes;
+
+    @Value("${notification.bulk.max-in-flight:1024}")
+    private int maxInFlight;
+
+    @Value("${notification.dispatch.ack-timeout:PT5S}")
+    private Duration ackTimeout;
+
+    /**
+     * Journals {@code notification} and answers once it is on disk. Throws
+     * {@link RejectedExecutionException} right away when the dispatch queue is full.
+     */
+    public NotificationResponse create(NotificationEnvelope notification) {
+        CompletableFuture<NotificationResponse> response;
+        try {
+            response = accept(notification, Duration.ZERO);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return await(response);
+    }
+
+    /**
+     * Reads newline-delimited {@link NotificationRequest}s from {@code in} and writes one
+     * {@link NotificationResponse} line to {@code out} per record, in order, as each one is processed.
+     * Only one line is held at a time. A record that is not valid JSON, longer than
+     * {@code notification.bulk.max-line-bytes}, fails validation or does not fit the journal gets an
+     * error response and the stream goes on; blank lines are skipped. Up to
+     * {@code notification.bulk.max-in-flight} records are journaled at a time, and responses are flushed
+     * whenever no more input is waiting.
+     * <p>
+     * Records are framed by newlines rather than read with one parser over the whole body, so a malformed
+     * record only costs its own line and the next record starts at the next newline. Each line is bound
+     * straight from the reused line buffer by the shared {@link ObjectReader}, which walks its tokens once
+     * without building a tree; {@code max-line-bytes} bounds what that holds.
+     */
+    public void createBulk(InputStream in, OutputStream out, NotificationEnvelope headers) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(NotificationRequest.class)
+                .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        LineReader lines = new LineReader(new BufferedInputStream(in), maxLineBytes);
+        // records being journaled, answered in order; bounds the memory held for a batch
+        Deque<CompletableFuture<NotificationResponse>> inFlight = new ArrayDeque<>();
+        int[] counts = new int[2];
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            while (lines.next()) {
+                if (lines.isBlank()) {
+                    continue;
+                }
+                if (lines.isTruncated()) {
+                    metrics.recordValidationFailure(headers.getChannelId(), headers.getCountryOfOrigin(), MALFORMED);
+                    inFlight.add(CompletableFuture.completedFuture(error(ERROR_CODE_MALFORMED, "Record exceeds " + maxLineBytes + " bytes")));
+                } else {
+                    inFlight.add(createLine(reader, lines, headers));
+                }
+                while (inFlight.size() >= maxInFlight) {
+                    writeResponse(generator, inFlight.poll(), counts);
+                }
+                if (!lines.hasBuffered()) {
+                    // the client is not sending faster than we answer, so let it see the progress
+                    while (!inFlight.isEmpty()) {
+                        writeResponse(generator, inFlight.poll(), counts);
+                    }
+                    generator.flush();
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeResponse(generator, inFlight.poll(), counts);
+            }
+        }
+        log.info("Bulk notification transactionIdentifier : {} created {} failed {}", headers.getTransactionId(), counts[0], counts[1]);
+    }
+
+    private void writeResponse(JsonGenerator generator, CompletableFuture<NotificationResponse> pending, int[] counts)
+            throws IOException {
+        NotificationResponse response;
+        try {
+            response = await(pending);
+        } catch (RuntimeException e) {
+            response = error(ERROR_CODE_UNAVAILABLE, e.getMessage());
+        }
+        counts[ERROR_CODE_SUCCESS.equals(response.getError_code()) ? 0 : 1]++;
+        generator.writeObject(response);
+        generator.writeRaw('\n');
+    }
+
+    private CompletableFuture<NotificationResponse> createLine(ObjectReader reader, LineReader line, NotificationEnvelope headers) {
+        NotificationRequest request;
+        try {
+            request = reader.readValue(line.bytes(), 0, line.length());
+        } catch (JsonProcessingException e) {
+            metrics.recordValidationFailure(headers.getChannelId(), headers.getCountryOfOrigin(), MALFORMED);
+            return CompletableFuture.completedFuture(error(ERROR_CODE_MALFORMED, e.getOriginalMessage()));
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(error(ERROR_CODE_MALFORMED, e.getMessage()));
+        }
+        metrics.recordPayload(headers.getChannelId(), headers.getCountryOfOrigin(), line.length());
+        Set<ConstraintViolation<NotificationRequest>> violations = validator.validate(request);
+        for (ConstraintViolation<NotificationRequest> violation : violations) {
+            metrics.recordValidationFailure(headers.getChannelId(), headers.getCountryOfOrigin(),
+                    violation.getPropertyPath().toString());
+        }
+        if (!violations.isEmpty()) {
+            return CompletableFuture.completedFuture(error(ERROR_CODE_INVALID, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", "))));
+        }
+        NotificationEnvelope notification = new NotificationEnvelope();
+        notification.setChannelId(headers.getChannelId());
+        notification.setTransactionDateTime(headers.getTransactionDateTime());
+        notification.setTransactionTimeZone(headers.getTransactionTimeZone());
+        notification.setCountryOfOrigin(headers.getCountryOfOrigin());
+        notification.setTransactionId(headers.getTransactionId());
+        notification.setRequest(request);
+        try {
+            // a bulk upload waits for room in the queue instead of failing records
+            return accept(notification, ackTimeout);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(error(ERROR_CODE_UNAVAILABLE, e.getMessage()));
+        } catch (ResponseStatusException e) {
+            return CompletableFuture.completedFuture(error(ERROR_CODE_INVALID, e.getReason()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CompletableFuture<NotificationResponse> accept(NotificationEnvelope notification, Duration wait)
+            throws InterruptedException {
+        return dispatcher.submit(notification, wait).thenApply(offset -> {
+            NotificationResponse response = new NotificationResponse();
+            response.setError_code(ERROR_CODE_SUCCESS);
+            response.setError_text("Success");
+            response.setNotifyId(notification.getRequest().getIntValue());
+            return response;
+        });
+    }
+
+    private NotificationResponse await(CompletableFuture<NotificationResponse> response) {
+        try {
+            return response.get(ackTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Notification not journaled within " + ackTimeout);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Notification could not be journaled", e.getCause());
+        }
+    }
+
+    private static NotificationResponse error(String code, String text) {
+        NotificationResponse response = new NotificationResponse();
+        response.setError_code(code);
+        response.setError_text(text == null || text.length() <= MAX_ERROR_TEXT ? text : text.substring(0, MAX_ERROR_TEXT - 3) + "...");
+        return response;
+    }
+
+    /** Reads {@code \n} terminated lines into a reused buffer; the rest of an over-long line is skipped. */
+    private static class LineReader {
+        private final InputStream in;
+        private final int max;
+        private byte[] buffer = new byte[1024];
+        private int length;
+        private boolean truncated;
+
+        LineReader(InputStream in, int max) {
+            this.in = in;
+            this.max = max;
+        }
+
+        boolean next() throws IOException {
+            length = 0;
+            truncated = false;
+            int b = in.read();
+            if (b == -1) {
+                return false;
+            }
+            for (; b != -1 && b != '\n'; b = in.read()) {
+                if (length == max) {
+                    truncated = true;
+                } else if (!truncated) {
+                    if (length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, Math.min(max, buffer.length * 2));
+                    }
+                    buffer[length++] = (byte) b;
+                }
+            }
+            return true;
+        }
+
+        boolean hasBuffered() throws IOException {
+            return in.available() > 0;
+        }
+
+        boolean isBlank() {
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(buffer[i])) {
+                    return false;
+                }
+            }
+            return !truncated;
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        byte[] bytes() {
+            return buffer;
+        }
+
+        int length() {
+            return length;
+        }
+    }
+}
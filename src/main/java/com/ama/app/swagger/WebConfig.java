@@ -1,12 +1,25 @@
 package com.ama.app.swagger;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.ama.app.controller.NotificationMetricsInterceptor;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
-    
+
+    @Autowired
+    private NotificationMetricsInterceptor notificationMetricsInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(notificationMetricsInterceptor)
+                .addPathPatterns("/api/notification/create", "/api/notification/create/bulk");
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/swagger-ui/**")
@@ -0,0 +1,255 @@
+package com.ama.app.doc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
+
+import com.ama.app.request.DocumentCacheStatsResponse;
+
+class DocumentCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private Path cacheDir;
+    private DocumentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cacheDir = dir.resolve("cache");
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    void memoryTierEvictsLeastRecentlyUsedByBytes() throws IOException {
+        cache = cache(100, 60, 1000);
+        put("a", 40);
+        put("b", 40);
+        read("a");
+        put("c", 40);
+
+        DocumentCacheStatsResponse stats = cache.stats();
+        assertEquals(2, stats.getMemoryEntries());
+        assertEquals(80, stats.getMemoryBytes());
+        assertEquals(1, stats.getMemoryEvictions());
+        // b went from memory but is still on disk
+        read("b");
+        assertEquals(1, cache.stats().getDiskHits());
+    }
+
+    @Test
+    void diskTierEvictsLeastRecentlyUsedByBytes() throws IOException {
+        cache = cache(0, 0, 100);
+        put("a", 40);
+        put("b", 40);
+        read("a");
+        put("c", 40);
+
+        DocumentCacheStatsResponse stats = cache.stats();
+        assertEquals(2, stats.getDiskEntries());
+        assertEquals(80, stats.getDiskBytes());
+        assertEquals(1, stats.getDiskEvictions());
+        assertNull(cache.open("b"));
+        assertFalse(Files.exists(cacheDir.resolve("b.bin")));
+        assertNotNull(cache.open("a"));
+    }
+
+    @Test
+    void entriesOverTheMemoryEntryLimitAreOnlyOnDisk() throws IOException {
+        cache = cache(1000, 10, 1000);
+        put("big", 11);
+        put("small", 10);
+
+        assertEquals(1, cache.stats().getMemoryEntries());
+        assertEquals(11, read("big").length);
+        assertEquals(1, cache.stats().getDiskHits());
+    }
+
+    @Test
+    void evictRemovesBothTiers() throws IOException {
+        cache = cache(1000, 100, 1000);
+        put("a", 40);
+        cache.evict("a");
+
+        assertFalse(cache.contains("a"));
+        assertEquals(0, cache.stats().getMemoryBytes());
+        assertEquals(0, cache.stats().getDiskBytes());
+        assertFalse(Files.exists(cacheDir.resolve("a.bin")));
+    }
+
+    @Test
+    void reopeningIndexesEntriesAndClearsLeftovers() throws IOException {
+        cache = cache(1000, 100, 1000);
+        put("a", 40);
+        cache.shutdown();
+        Files.write(cacheDir.resolve("b1234.tmp"), new byte[5]);
+        Files.write(cacheDir.resolve("snapshots").resolve("spec-1-api.yaml"), new byte[5]);
+
+        cache = cache(1000, 100, 1000);
+
+        assertFalse(Files.exists(cacheDir.resolve("b1234.tmp")));
+        assertFalse(Files.exists(cacheDir.resolve("snapshots").resolve("spec-1-api.yaml")));
+        assertEquals(1, cache.stats().getDiskEntries());
+        assertEquals(40, cache.stats().getDiskBytes());
+        assertEquals(40, read("a").length);
+    }
+
+    @Test
+    void claimIsHeldUntilTheEntryIsCommitted() throws IOException {
+        cache = cache(1000, 100, 1000);
+        assertNull(cache.claim("a"));
+        CompletableFuture<Void> pending = cache.claim("a");
+        assertNotNull(pending);
+        assertFalse(pending.isDone());
+
+        DocumentCache.Entry entry = cache.create("a");
+        entry.write(new byte[10]);
+        entry.commit();
+
+        assertTrue(pending.isDone());
+        assertTrue(cache.contains("a"));
+        // released, so the next miss can claim it again
+        assertNull(cache.claim("a"));
+    }
+
+    @Test
+    void abortReleasesTheClaimWithoutAnEntry() throws IOException {
+        cache = cache(1000, 100, 1000);
+        cache.claim("a");
+        CompletableFuture<Void> pending = cache.claim("a");
+        DocumentCache.Entry entry = cache.create("a");
+        entry.write(new byte[10]);
+        entry.abort();
+
+        assertTrue(pending.isDone());
+        assertFalse(cache.contains("a"));
+        assertTrue(leftovers().isEmpty());
+    }
+
+    @Test
+    void failingCreateReleasesTheClaim() throws IOException {
+        cache = cache(1000, 100, 1000);
+        cache.claim("a");
+        CompletableFuture<Void> pending = cache.claim("a");
+        FileSystemUtils.deleteRecursively(cacheDir);
+
+        assertThrows(IOException.class, () -> cache.create("a"));
+        assertTrue(pending.isDone());
+        assertNull(cache.claim("a"));
+    }
+
+    @Test
+    void lateCommitDoesNotReleaseANewerClaim() throws IOException {
+        cache = cache(1000, 100, 1000);
+        cache.claim("a");
+        DocumentCache.Entry entry = cache.create("a");
+        cache.release("a");
+        assertNull(cache.claim("a"));
+        CompletableFuture<Void> newer = cache.claim("a");
+
+        entry.commit();
+
+        assertFalse(newer.isDone());
+    }
+
+    @Test
+    void fillRendersTheEntryAndReleasesTheClaim() throws Exception {
+        cache = cache(1000, 100, 1000);
+        cache.claim("a");
+        CountDownLatch closed = new CountDownLatch(1);
+
+        cache.fill("a", out -> out.write(new byte[30]), closed::countDown).get(10, TimeUnit.SECONDS);
+
+        assertEquals(30, read("a").length);
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+        assertNull(cache.claim("a"));
+    }
+
+    @Test
+    void failedFillReleasesTheClaimWithoutAnEntry() throws Exception {
+        cache = cache(1000, 100, 1000);
+        cache.claim("a");
+        CountDownLatch closed = new CountDownLatch(1);
+
+        cache.fill("a", out -> {
+            out.write(new byte[30]);
+            throw new IOException("render failed");
+        }, closed::countDown).get(10, TimeUnit.SECONDS);
+
+        assertFalse(cache.contains("a"));
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+        assertTrue(leftovers().isEmpty());
+        assertNull(cache.claim("a"));
+    }
+
+    @Test
+    void snapshotKeyCoversTheCopiedBytes() throws IOException {
+        cache = cache(1000, 100, 1000);
+        Path spec = dir.resolve("api.yaml");
+        Files.writeString(spec, "openapi: 3.0.1\n");
+
+        try (DocumentCache.Snapshot snapshot = cache.snapshot(spec, "DOM")) {
+            assertTrue(snapshot.file().getFileName().toString().endsWith("-api.yaml"));
+            assertArrayEquals(Files.readAllBytes(spec), Files.readAllBytes(snapshot.file()));
+            var digest = cache.keyDigest("DOM");
+            digest.update("openapi: 3.0.1\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals(cache.key(digest), snapshot.key());
+            // the variant is part of the key
+            try (DocumentCache.Snapshot other = cache.snapshot(spec, "STREAMING")) {
+                assertFalse(other.key().equals(snapshot.key()));
+            }
+            snapshot.close();
+            assertFalse(Files.exists(snapshot.file()));
+        }
+    }
+
+    private DocumentCache cache(long memoryMaxBytes, long memoryMaxEntryBytes, long diskMaxBytes) throws IOException {
+        return new DocumentCache(memoryMaxBytes, memoryMaxEntryBytes, diskMaxBytes, cacheDir.toString(), 1, 4);
+    }
+
+    private void put(String key, int size) throws IOException {
+        assertNull(cache.claim(key));
+        DocumentCache.Entry entry = cache.create(key);
+        entry.write(new byte[size]);
+        entry.commit();
+    }
+
+    private byte[] read(String key) throws IOException {
+        try (InputStream in = cache.open(key)) {
+            assertNotNull(in, key);
+            return in.readAllBytes();
+        }
+    }
+
+    private List<Path> leftovers() throws IOException {
+        try (var files = Files.list(cacheDir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".tmp")).toList();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ama.app.doc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+
+/** Renders the warm-up sample each way and compares the text of the documents. */
+class DynamicSwaggerToWordServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private Path spec;
+    private DynamicSwaggerToWordService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        spec = dir.resolve("sample-openapi.yaml");
+        try (InputStream in = getClass().getResourceAsStream("/warmup/sample-openapi.yaml")) {
+            Files.copy(in, spec);
+        }
+        // smaller than the sample's operations, so the parallel window fills up
+        service = new DynamicSwaggerToWordService(2);
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void streamingDocxMatchesDom() throws Exception {
+        String dom = text(GenerationOptions.of(GenerationMode.DOM));
+        assertTrue(dom.contains("/orders/{orderId}"), dom);
+        assertTrue(dom.contains("lines[].quantity"), dom);
+
+        assertEquals(dom, text(GenerationOptions.of(GenerationMode.STREAMING)));
+    }
+
+    @Test
+    void streamingDocxMatchesDomWithSchemaAppendix() throws Exception {
+        GenerationOptions dom = GenerationOptions.of(GenerationMode.DOM);
+        dom.setSchemaAppendix(true);
+        GenerationOptions streaming = GenerationOptions.of(GenerationMode.STREAMING);
+        streaming.setSchemaAppendix(true);
+
+        assertEquals(text(dom), text(streaming));
+    }
+
+    @Test
+    void parallelMatchesSequential() throws Exception {
+        String sequential = text(GenerationOptions.of(GenerationMode.DOM));
+        for (GenerationMode mode : GenerationMode.values()) {
+            GenerationOptions parallel = GenerationOptions.of(mode);
+            parallel.setParallel(true);
+            assertEquals(sequential, text(parallel), mode.name());
+            parallel.setSchemaAppendix(true);
+            GenerationOptions appendix = GenerationOptions.of(GenerationMode.DOM);
+            appendix.setSchemaAppendix(true);
+            assertEquals(text(appendix), text(parallel), mode.name());
+        }
+    }
+
+    @Test
+    void streamingParseMatchesTreeParse() throws Exception {
+        Path json = dir.resolve("sample-openapi.json");
+        new ObjectMapper().writeValue(json.toFile(), new YAMLMapper().readTree(spec.toFile()));
+
+        for (Path file : List.of(spec, json)) {
+            for (GenerationMode mode : GenerationMode.values()) {
+                for (boolean appendix : new boolean[]{false, true}) {
+                    String label = file.getFileName() + " " + mode + (appendix ? " with appendix" : "");
+                    GenerationOptions tree = GenerationOptions.of(mode);
+                    tree.setSchemaAppendix(appendix);
+                    String expected = text(file, tree);
+                    GenerationOptions streaming = GenerationOptions.of(mode);
+                    streaming.setSchemaAppendix(appendix);
+                    streaming.setStreamingParse(true);
+                    assertEquals(expected, text(file, streaming), label);
+                    streaming.setParallel(true);
+                    assertEquals(expected, text(file, streaming), label + ", parallel");
+                }
+            }
+        }
+    }
+
+    @Test
+    void incrementalMatchesFull() throws Exception {
+        OperationFragmentStore store = new OperationFragmentStore(8);
+        ReflectionTestUtils.setField(service, "fragmentStore", store);
+        String v1 = Files.readString(spec);
+        // listOrders changes, cancelOrder is replaced by replaceOrder
+        String v2 = replace(replace(v1, "          description: Orders\n", "          description: All orders\n"),
+                "    delete:\n      summary: Cancel an order\n      operationId: cancelOrder\n"
+                        + "      responses:\n        '204':\n          description: Cancelled\n",
+                "    put:\n      summary: Replace an order\n      operationId: replaceOrder\n"
+                        + "      responses:\n        '204':\n          description: Replaced\n");
+        // reached through Order and NewOrder by every operation but replaceOrder; the path level
+        // parameters of /orders/{orderId} are rendered as a section of their own and stay the same
+        String v3 = replace(v2, "          type: integer\n          minimum: 1\n", "          type: integer\n          minimum: 2\n");
+
+        for (GenerationMode mode : GenerationMode.values()) {
+            for (boolean parallel : new boolean[]{false, true}) {
+                String specId = "sample-" + mode + "-" + parallel;
+                assertIncremental(store, specId, v1, mode, parallel, 0);
+                assertIncremental(store, specId, v1, mode, parallel, 5);
+                assertIncremental(store, specId, v2, mode, parallel, 3);
+                assertIncremental(store, specId, v3, mode, parallel, 2);
+            }
+        }
+    }
+
+    /** Renders {@code version} in full and incrementally and checks how many sections were reused. */
+    private void assertIncremental(OperationFragmentStore store, String specId, String version, GenerationMode mode,
+            boolean parallel, int reused) throws Exception {
+        Files.writeString(spec, version);
+        GenerationOptions full = GenerationOptions.of(mode);
+        full.setParallel(parallel);
+        GenerationOptions incremental = GenerationOptions.of(mode);
+        incremental.setParallel(parallel);
+        incremental.setIncremental(true);
+        incremental.setSpecId(specId);
+        Map<String, OperationFragmentStore.Fragment> before = store.get(specId);
+
+        assertEquals(text(full), text(incremental), specId);
+        Map<String, OperationFragmentStore.Fragment> after = store.get(specId);
+        assertEquals(reused, after.keySet().stream()
+                .filter(key -> before.containsKey(key) && before.get(key).section() == after.get(key).section())
+                .count(), specId);
+    }
+
+    private static String replace(String spec, String target, String replacement) {
+        assertTrue(spec.contains(target), target);
+        return spec.replace(target, replacement);
+    }
+
+    private String text(GenerationOptions options) throws Exception {
+        return text(spec, options);
+    }
+
+    private String text(Path file, GenerationOptions options) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.generateWordDoc(file.toString(), options, out);
+        try (XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(new ByteArrayInputStream(out.toByteArray())))) {
+            return extractor.getText();
+        }
+    }
+}
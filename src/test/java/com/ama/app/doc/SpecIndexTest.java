@@ -0,0 +1,111 @@
+package com.ama.app.doc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+
+class SpecIndexTest {
+
+    private static final String SPEC = """
+            components:
+              schemas:
+                Leaf:
+                  properties:
+                    value: {type: string}
+                Holder:
+                  properties:
+                    first: {type: array, items: {$ref: '#/components/schemas/Leaf'}}
+                    second: {type: array, items: {$ref: '#/components/schemas/Leaf'}}
+                Node:
+                  properties:
+                    name: {type: string}
+                    children: {type: array, items: {$ref: '#/components/schemas/Node'}}
+                Parent:
+                  properties:
+                    id: {type: integer}
+                    kids: {type: array, items: {$ref: '#/components/schemas/Child'}}
+                Child:
+                  required: [label]
+                  properties:
+                    label: {type: string}
+                    parents: {type: array, items: {$ref: '#/components/schemas/Parent'}}
+                Plain:
+                  type: string
+            """;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    @Test
+    void referencedSchemaIsFlattenedOnce() throws IOException {
+        SpecIndex index = SpecIndex.of(new YAMLMapper().readTree(SPEC));
+
+        List<String[]> leaf = index.rows(ref("Leaf"));
+        assertSame(leaf, index.rows(ref("Leaf")));
+        assertRows(index.rows(ref("Holder")), "first[].value", "second[].value");
+        // copies, the memoized rows keep their names
+        assertRows(leaf, "value");
+    }
+
+    @Test
+    void selfReferenceIsListedAsAPlainField() throws IOException {
+        SpecIndex index = SpecIndex.of(new YAMLMapper().readTree(SPEC));
+
+        List<String[]> rows = index.rows(ref("Node"));
+        assertRows(rows, "name", "children");
+        assertEquals("array", rows.get(1)[2]);
+        assertSame(rows, index.rows(ref("Node")));
+    }
+
+    @Test
+    void expansionCutByACycleIsNotReusedElsewhere() throws IOException {
+        SpecIndex index = SpecIndex.of(new YAMLMapper().readTree(SPEC));
+
+        // inside Parent, Child's parents point back into the enclosing schema
+        assertRows(index.rows(ref("Parent")), "id", "kids[].label", "kids[].parents");
+        // on its own, Child expands Parent and only then meets the cycle
+        List<String[]> child = index.rows(ref("Child"));
+        assertRows(child, "label", "parents[].id", "parents[].kids");
+        assertEquals("Yes", child.get(0)[3]);
+        assertSame(child, index.rows(ref("Child")));
+        assertRows(index.rows(ref("Parent")), "id", "kids[].label", "kids[].parents");
+    }
+
+    @Test
+    void inlineSchemaIsFlattenedEachTime() throws IOException {
+        SpecIndex index = SpecIndex.of(new YAMLMapper().readTree(SPEC));
+        JsonNode inline = new YAMLMapper().readTree("""
+                properties:
+                  leaves: {type: array, items: {$ref: '#/components/schemas/Leaf'}}
+                """);
+
+        List<String[]> rows = index.rows(inline);
+        assertRows(rows, "leaves[].value");
+        assertNotSame(rows, index.rows(inline));
+    }
+
+    @Test
+    void schemaWithoutPropertiesHasNoRows() throws IOException {
+        SpecIndex index = SpecIndex.of(new YAMLMapper().readTree(SPEC));
+
+        assertNull(index.rows(ref("Plain")));
+        assertNull(index.rows(ref("Missing")));
+    }
+
+    private JsonNode ref(String schema) {
+        return jsonMapper.createObjectNode().put("$ref", SpecIndex.componentRef("schemas", schema));
+    }
+
+    private static void assertRows(List<String[]> rows, String... fields) {
+        assertEquals(List.of(fields), rows.stream().map(row -> row[0]).toList());
+    }
+}
@@ -0,0 +1,210 @@
+package com.ama.app.journal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTest {
+
+    // four records of RECORD bytes fit a segment
+    private static final int PAYLOAD = 40;
+    private static final int RECORD = Journal.HEADER + PAYLOAD;
+    private static final int SEGMENT = 256;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsRecordsAcrossSegments() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 16);
+        append(journal, 10);
+        journal.flush();
+
+        assertEquals(3, segmentFiles().size());
+        assertOffsets(journal.read(0, 100), 0, 10);
+        assertOffsets(journal.read(3, 3), 3, 6);
+        assertArrayEquals(payload(7), journal.read(7, 1).get(0).payload());
+    }
+
+    @Test
+    void onlyFlushedRecordsAreRead() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 16);
+        append(journal, 2);
+        journal.flush();
+        append(journal, 1);
+
+        assertOffsets(journal.read(0, 100), 0, 2);
+        journal.flush();
+        assertOffsets(journal.read(0, 100), 0, 3);
+    }
+
+    @Test
+    void dropsSegmentsPastRetention() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 2);
+        append(journal, 13);
+        journal.flush();
+
+        assertEquals(2, segmentFiles().size());
+        assertEquals(8, journal.firstOffset());
+        assertOffsets(journal.read(0, 100), 8, 13);
+    }
+
+    @Test
+    void reopenContinuesAfterTheLastRecord() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 16);
+        append(journal, 10);
+        journal.close();
+
+        Journal reopened = new Journal(dir, SEGMENT, 16);
+        assertEquals(0, reopened.firstOffset());
+        assertEquals(10, reopened.nextOffset());
+        assertEquals(10, reopened.append(payload(10)));
+        reopened.flush();
+        assertOffsets(reopened.read(0, 100), 0, 11);
+    }
+
+    @Test
+    void reopenCutsACorruptTail() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 16);
+        append(journal, 10);
+        journal.close();
+        // a byte of the payload of record 9, the second one of the last segment
+        try (FileChannel channel = FileChannel.open(segment(8), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xff}), RECORD + Journal.HEADER + 5);
+        }
+
+        Journal reopened = new Journal(dir, SEGMENT, 16);
+        assertEquals(0, reopened.firstOffset());
+        assertEquals(9, reopened.nextOffset());
+        assertOffsets(reopened.read(0, 100), 0, 9);
+        assertEquals(9, reopened.append(payload(9)));
+        reopened.flush();
+        assertArrayEquals(payload(9), reopened.read(9, 1).get(0).payload());
+    }
+
+    @Test
+    void reopenCutsATruncatedTail() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 16);
+        append(journal, 10);
+        journal.close();
+        try (FileChannel channel = FileChannel.open(segment(8), StandardOpenOption.WRITE)) {
+            channel.truncate(RECORD + Journal.HEADER + 5);
+        }
+
+        Journal reopened = new Journal(dir, SEGMENT, 16);
+        assertEquals(9, reopened.nextOffset());
+        assertOffsets(reopened.read(0, 100), 0, 9);
+        append(reopened, 3);
+        reopened.flush();
+        assertOffsets(reopened.read(0, 100), 0, 12);
+    }
+
+    @Test
+    void discardDropsUnflushedRecords() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 16);
+        append(journal, 2);
+        journal.flush();
+        append(journal, 1);
+        journal.discard();
+
+        assertEquals(2, journal.nextOffset());
+        journal.close();
+        // the discarded bytes are not recovered
+        Journal reopened = new Journal(dir, SEGMENT, 16);
+        assertEquals(2, reopened.nextOffset());
+        assertEquals(2, reopened.append(payload(2)));
+        reopened.flush();
+        assertOffsets(reopened.read(0, 100), 0, 3);
+    }
+
+    @Test
+    void discardKeepsRecordsFlushedByARoll() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 16);
+        append(journal, 6);
+        journal.discard();
+
+        assertEquals(4, journal.nextOffset());
+        assertOffsets(journal.read(0, 100), 0, 4);
+    }
+
+    @Test
+    void failedRollKeepsTheJournalUsable() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 16);
+        append(journal, 4);
+        // the next segment's file cannot be opened
+        Files.createDirectory(segment(4));
+
+        assertThrows(IOException.class, () -> journal.append(payload(4)));
+        journal.discard();
+        assertEquals(4, journal.nextOffset());
+        assertOffsets(journal.read(0, 100), 0, 4);
+
+        Files.delete(segment(4));
+        assertEquals(4, journal.append(payload(4)));
+        journal.close();
+
+        Journal reopened = new Journal(dir, SEGMENT, 16);
+        assertEquals(5, reopened.nextOffset());
+        assertOffsets(reopened.read(0, 100), 0, 5);
+    }
+
+    @Test
+    void rollReusesAFileLeftByAFailedRoll() throws IOException {
+        Journal journal = new Journal(dir, SEGMENT, 16);
+        append(journal, 4);
+        journal.flush();
+        Files.write(segment(4), new byte[]{1, 2, 3});
+
+        assertEquals(4, journal.append(payload(4)));
+        journal.flush();
+        assertOffsets(journal.read(0, 100), 0, 5);
+    }
+
+    private static void append(Journal journal, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            long offset = journal.nextOffset();
+            assertEquals(offset, journal.append(payload(offset)));
+        }
+    }
+
+    private static byte[] payload(long offset) {
+        byte[] payload = new byte[PAYLOAD];
+        for (int i = 0; i < PAYLOAD; i++) {
+            payload[i] = (byte) (offset + i);
+        }
+        return payload;
+    }
+
+    private static void assertOffsets(List<JournalRecord> records, long from, long to) {
+        assertEquals(to - from, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(from + i, records.get(i).offset());
+            assertArrayEquals(payload(from + i), records.get(i).payload());
+        }
+    }
+
+    private Path segment(long base) {
+        return dir.resolve(String.format("%020d.log", base));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.filter(f -> f.toString().endsWith(".log")).toList();
+            assertTrue(segments.stream().allMatch(Files::isRegularFile));
+            return segments;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.ama.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.ama.app.request.NotificationResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyCacheTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void retryGetsTheFirstResponse() {
+        IdempotencyCache cache = new IdempotencyCache(Duration.ofMinutes(10), 10, registry);
+        AtomicInteger calls = new AtomicInteger();
+        NotificationResponse first = cache.get("tx", "WEB", () -> response(calls));
+
+        assertSame(first, cache.get("tx", "WEB", () -> response(calls)));
+        assertEquals(1, calls.get());
+        // the channel is part of the key
+        cache.get("tx", "MOBILE", () -> response(calls));
+        assertEquals(2, calls.get());
+        assertEquals(1, requests("hit"));
+    }
+
+    @Test
+    void failedRequestIsProcessedAgainOnRetry() {
+        IdempotencyCache cache = new IdempotencyCache(Duration.ofMinutes(10), 10, registry);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(RejectedExecutionException.class, () -> cache.get("tx", "WEB", () -> {
+            calls.incrementAndGet();
+            throw new RejectedExecutionException("queue full");
+        }));
+        cache.get("tx", "WEB", () -> response(calls));
+
+        assertEquals(2, calls.get());
+        assertEquals(0, requests("hit"));
+    }
+
+    @Test
+    void failuresTakeNoRoom() {
+        IdempotencyCache cache = new IdempotencyCache(Duration.ofMinutes(10), 5, registry);
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("ok", "WEB", () -> response(calls));
+        for (int i = 0; i < 1000; i++) {
+            assertThrows(IllegalStateException.class, () -> cache.get("tx", "WEB", () -> {
+                throw new IllegalStateException("invalid");
+            }));
+        }
+
+        assertEquals(1, size());
+        assertEquals(1000, evictions("failed"));
+        assertEquals(0, evictions("size"));
+        cache.get("ok", "WEB", () -> response(calls));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void errorIsNotRememberedEither() {
+        IdempotencyCache cache = new IdempotencyCache(Duration.ofMinutes(10), 10, registry);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(OutOfMemoryError.class, () -> cache.get("tx", "WEB", () -> {
+            throw new OutOfMemoryError("test");
+        }));
+        cache.get("tx", "WEB", () -> response(calls));
+
+        assertEquals(1, calls.get());
+        assertEquals(1, size());
+    }
+
+    @Test
+    void duplicateInFlightSharesTheFailure() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(Duration.ofMinutes(10), 10, registry);
+        CountDownLatch processing = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<NotificationResponse> first = executor.submit(() -> cache.get("tx", "WEB", () -> {
+                processing.countDown();
+                await(fail);
+                throw new RejectedExecutionException("queue full");
+            }));
+            assertTrue(processing.await(10, TimeUnit.SECONDS));
+            Future<NotificationResponse> duplicate = executor.submit(() -> cache.get("tx", "WEB", () -> {
+                throw new AssertionError("merged with the request in flight");
+            }));
+            while (requests("hit") < 1) {
+                Thread.sleep(1);
+            }
+            fail.countDown();
+
+            assertInstanceOf(RejectedExecutionException.class,
+                    assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS)).getCause());
+            assertInstanceOf(RejectedExecutionException.class,
+                    assertThrows(ExecutionException.class, () -> duplicate.get(10, TimeUnit.SECONDS)).getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        // the retry after the failure is processed again
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("tx", "WEB", () -> response(calls));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void oldestEntryIsEvictedPastMaxEntries() {
+        IdempotencyCache cache = new IdempotencyCache(Duration.ofMinutes(10), 2, registry);
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("tx1", "WEB", () -> response(calls));
+        cache.get("tx2", "WEB", () -> response(calls));
+        cache.get("tx3", "WEB", () -> response(calls));
+
+        assertEquals(2, size());
+        assertEquals(1, evictions("size"));
+        // tx1 was dropped, tx3 is still remembered
+        cache.get("tx3", "WEB", () -> response(calls));
+        assertEquals(3, calls.get());
+        cache.get("tx1", "WEB", () -> response(calls));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void expiredEntryIsProcessedAgain() throws InterruptedException {
+        IdempotencyCache cache = new IdempotencyCache(Duration.ofMillis(1), 10, registry);
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("tx", "WEB", () -> response(calls));
+        Thread.sleep(5);
+        cache.get("tx", "WEB", () -> response(calls));
+
+        assertEquals(2, calls.get());
+        assertEquals(1, evictions("expired"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static NotificationResponse response(AtomicInteger calls) {
+        calls.incrementAndGet();
+        return new NotificationResponse();
+    }
+
+    private double requests(String result) {
+        return registry.get("notification.idempotency.requests").tag("result", result).functionCounter().count();
+    }
+
+    private double evictions(String cause) {
+        return registry.get("notification.idempotency.evictions").tag("cause", cause).functionCounter().count();
+    }
+
+    private double size() {
+        return registry.get("notification.idempotency.size").gauge().value();
+    }
+}